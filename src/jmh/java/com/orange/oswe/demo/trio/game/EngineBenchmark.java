@@ -0,0 +1,51 @@
+package com.orange.oswe.demo.trio.game;
+
+import com.orange.oswe.demo.trio.domain.User;
+import com.orange.oswe.demo.trio.game.actions.Action;
+import com.orange.oswe.demo.trio.game.actions.ActionException;
+import com.orange.oswe.demo.trio.game.model.Game;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Game start: deck shuffle, board refill and cards draw (including extra draws when no trio), over many seeded decks
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EngineBenchmark {
+
+    private static final int DECKS = 1024;
+    private static final User CREATOR = new User("creator", "Creator", "password");
+    private static final Action START = new Action(Action.Type.start_game);
+
+    private int idx;
+    private TimeoutScheduler scheduler;
+    private Engine engine;
+
+    @Setup
+    public void setup() {
+        // --- replays the same decks across runs: seeds cycle over [0, DECKS)
+        Shuffler shuffler = new Shuffler(() -> idx = (idx + 1) % DECKS);
+        scheduler = new TimeoutScheduler();
+        // --- events are discarded: their serialization is measured by EventSerializationBenchmark
+        engine = new Engine("bench", CREATOR, shuffler, (gameId, event) -> {}, scheduler, Runnable::run, TimeUnit.HOURS.toMillis(1), e -> {});
+    }
+
+    @TearDown
+    public void tearDown() {
+        engine.shutdown();
+        scheduler.shutdown();
+    }
+
+    @Benchmark
+    public Game startGame() throws ActionException {
+        engine.getGame().reset();
+        engine.handle(CREATOR, START);
+        return engine.getGame();
+    }
+}
@@ -0,0 +1,24 @@
+package com.orange.oswe.demo.trio.game;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deck shuffling (once per game start)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShufflerBenchmark {
+
+    private final Shuffler shuffler = new Shuffler();
+
+    @Benchmark
+    public Deck shuffle() {
+        return shuffler.shuffle();
+    }
+}
@@ -0,0 +1,117 @@
+package com.orange.oswe.demo.trio.game;
+
+import com.orange.oswe.demo.trio.game.model.Card;
+import com.orange.oswe.demo.trio.game.model.Game;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Trio detection as maintained by the engine on boards dealt from shuffled decks: cards are
+ * {@link TrioFinder#put(int, int) put} on and {@link TrioFinder#remove(int) removed} from the board, then
+ * {@link TrioFinder#hasTrio()} is checked
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TrioFinderBenchmark {
+
+    private static final int BOARDS = 256;
+
+    @Param({"12", "15"})
+    int boardSize;
+
+    // card values: the board, then 3 replacement cards
+    private final int[][] boards = new int[BOARDS][];
+    private final Card[][] cardBoards = new Card[BOARDS][];
+    // one finder per board, loaded with it
+    private final TrioFinder[] finders = new TrioFinder[BOARDS];
+    private final TrioFinder finder = new TrioFinder();
+    private int idx;
+
+    @Setup
+    public void setup() {
+        Shuffler shuffler = new Shuffler();
+        for (int i = 0; i < BOARDS; i++) {
+            Deck deck = shuffler.shuffle(i);
+            boards[i] = new int[boardSize + 3];
+            for (int pos = 0; pos < boards[i].length; pos++) {
+                boards[i][pos] = deck.draw();
+            }
+            cardBoards[i] = new Card[Game.FULL_BOARD_SIZE];
+            finders[i] = new TrioFinder();
+            for (int pos = 0; pos < boardSize; pos++) {
+                cardBoards[i][pos] = Card.of(boards[i][pos]);
+                finders[i].put(pos, boards[i][pos]);
+            }
+        }
+    }
+
+    private int next() {
+        idx = (idx + 1) % BOARDS;
+        return idx;
+    }
+
+    /**
+     * Deals a whole board, as on game start
+     */
+    @Benchmark
+    public boolean deal() {
+        int[] board = boards[next()];
+        finder.clear();
+        for (int pos = 0; pos < boardSize; pos++) {
+            finder.put(pos, board[pos]);
+        }
+        return finder.hasTrio();
+    }
+
+    /**
+     * Replaces 3 cards, as after a trio is found, then puts them back (2 replacements per call)
+     */
+    @Benchmark
+    public boolean replace() {
+        int i = next();
+        int[] board = boards[i];
+        TrioFinder loaded = finders[i];
+        for (int pos = 0; pos < 3; pos++) {
+            loaded.remove(pos);
+            loaded.put(pos, board[boardSize + pos]);
+        }
+        boolean hasTrio = loaded.hasTrio();
+        for (int pos = 0; pos < 3; pos++) {
+            loaded.remove(pos);
+            loaded.put(pos, board[pos]);
+        }
+        return hasTrio & loaded.hasTrio();
+    }
+
+    /**
+     * Baseline: the former triple loop over all card triples
+     */
+    @Benchmark
+    public Object findAll_legacy() {
+        Card[] board = cardBoards[next()];
+        List<int[]> found = new ArrayList<>();
+        for (int i = 0; i < board.length - 2; i++) {
+            if (board[i] == null)
+                continue;
+            for (int j = i + 1; j < board.length - 1; j++) {
+                if (board[j] == null)
+                    continue;
+                for (int k = j + 1; k < board.length; k++) {
+                    if (board[k] == null)
+                        continue;
+                    if (Card.isTrio(board[i], board[j], board[k]).isEmpty()) {
+                        found.add(new int[]{i, j, k});
+                    }
+                }
+            }
+        }
+        return found;
+    }
+}
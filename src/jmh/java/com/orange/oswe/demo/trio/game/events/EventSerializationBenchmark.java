@@ -0,0 +1,87 @@
+package com.orange.oswe.demo.trio.game.events;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.orange.oswe.demo.trio.domain.User;
+import com.orange.oswe.demo.trio.game.model.Card;
+import com.orange.oswe.demo.trio.game.model.Game;
+import com.orange.oswe.demo.trio.game.model.Player;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON serialization of every {@link Event} type, as sent to the game topic subscribers
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventSerializationBenchmark {
+
+    @Param
+    Event.Type type;
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private Event event;
+
+    @Setup
+    public void setup() {
+        Player player = new Player(new User("player1", "Player One", "password"));
+        Event.QueueDelta queue = new Event.QueueDelta(1, Collections.singletonList("player3"));
+        switch (type) {
+            case game_state_changed:
+                event = Event.gameStateChanged(Game.State.playing);
+                break;
+            case player_joined:
+                event = Event.playerJoined(player);
+                break;
+            case player_left:
+                event = Event.playerLeft(player);
+                break;
+            case player_selects:
+                event = Event.playerSelectsTrio(player, queue);
+                break;
+            case player_declares:
+                event = Event.playerDeclaresTrio(player, queue);
+                break;
+            case select_timeout:
+                event = Event.trioSelectionTimeouted(player, 5, queue);
+                break;
+            case select_giveup:
+                event = Event.trioSelectionGiveUp(player, 5, queue);
+                break;
+            case select_nolonger:
+                event = Event.trioSelectionWithdraw(player, queue);
+                break;
+            case select_success:
+                event = Event.trioSelectionSuccess(player, new int[]{0, 4, 11}, 9, queue);
+                break;
+            case select_failure:
+                event = Event.trioSelectionFailure(player, Arrays.asList(Card.Attribute.fill, Card.Attribute.number), 5, queue);
+                break;
+            case cards_moved:
+                event = Event.cardsMoved(new int[]{12, 13, 14}, new int[]{0, 4, 11});
+                break;
+            case cards_drawn:
+                Card[] cards = new Card[12];
+                int[] positions = new int[12];
+                for (int i = 0; i < cards.length; i++) {
+                    cards[i] = Card.of(i % 3, (i / 3) % 3, (i / 9) % 3, 1);
+                    positions[i] = i;
+                }
+                event = Event.cardsDrawn(Event.DrawReason.refill, 81, cards, positions);
+                break;
+        }
+    }
+
+    @Benchmark
+    public byte[] toJson() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(event);
+    }
+}
@@ -0,0 +1,85 @@
+package com.orange.oswe.demo.trio.game.model;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares trio validation implementations on random triples of cards
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CardBenchmark {
+
+    private static final int TRIPLES = 1024;
+
+    private final Card[] cards = new Card[TRIPLES * 3];
+    private final int[] values = new int[TRIPLES * 3];
+    private int idx;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        for (int i = 0; i < cards.length; i++) {
+            cards[i] = Card.of(random.nextInt(3), random.nextInt(3), random.nextInt(3), random.nextInt(3));
+            values[i] = cards[i].getValue();
+        }
+    }
+
+    private int next() {
+        idx = (idx + 3) % cards.length;
+        return idx;
+    }
+
+    /**
+     * Baseline: the former implementation, allocating a list and reading attributes several times
+     */
+    @Benchmark
+    public List<Card.Attribute> isTrio_legacy() {
+        int i = next();
+        return legacyIsTrio(cards[i], cards[i + 1], cards[i + 2]);
+    }
+
+    @Benchmark
+    public List<Card.Attribute> isTrio_list() {
+        int i = next();
+        return Card.isTrio(cards[i], cards[i + 1], cards[i + 2]);
+    }
+
+    @Benchmark
+    public int faultyAttributes() {
+        int i = next();
+        return Card.faultyAttributes(values[i], values[i + 1], values[i + 2]);
+    }
+
+    @Benchmark
+    public boolean isTrio_table() {
+        int i = next();
+        return TrioTable.isTrio(values[i], values[i + 1], values[i + 2]);
+    }
+
+    private static List<Card.Attribute> legacyIsTrio(Card card1, Card card2, Card card3) {
+        List<Card.Attribute> faulty = new ArrayList<>();
+        for (Card.Attribute attribute : Card.Attribute.values()) {
+            if (card1.getAttribute(attribute) == card2.getAttribute(attribute)) {
+                if (card1.getAttribute(attribute) != card3.getAttribute(attribute)) {
+                    faulty.add(attribute);
+                }
+            } else {
+                if (card1.getAttribute(attribute) == card3.getAttribute(attribute)) {
+                    faulty.add(attribute);
+                } else if (card2.getAttribute(attribute) == card3.getAttribute(attribute)) {
+                    faulty.add(attribute);
+                }
+            }
+        }
+        return faulty;
+    }
+}
@@ -0,0 +1,129 @@
+package com.orange.oswe.demo.trio.cluster;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.orange.oswe.demo.trio.domain.User;
+import com.orange.oswe.demo.trio.game.actions.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Client of the {@link ClusterServer} of the other nodes
+ * <p>
+ * Calls are made on a dedicated executor; the returned futures fail with the same {@link ActionException} as a local
+ * call would (or with an {@link IOException} if the remote node could not be reached).
+ */
+public class ClusterClient {
+    private static final int CONNECT_TIMEOUT = 2000;
+    private static final int READ_TIMEOUT = 10000;
+
+    private final String secret;
+    private final ObjectMapper objectMapper;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(8, new ThreadFactoryBuilder().setNameFormat("trio-cluster-client-%d").setDaemon(true).build());
+
+    public ClusterClient(String secret, ObjectMapper objectMapper) {
+        this.secret = secret;
+        this.objectMapper = objectMapper;
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    public CompletableFuture<JsonNode> createGame(ClusterNode node, User user) {
+        return call(node, "POST", ClusterServer.PATH, toJson(user)).thenApply(this::readTree);
+    }
+
+    /**
+     * @return the game JSON representation, as is
+     */
+    public CompletableFuture<byte[]> getGame(ClusterNode node, String id) {
+        return call(node, "GET", ClusterServer.PATH + "/" + id, null);
+    }
+
+    public CompletableFuture<Void> submit(ClusterNode node, String id, User user, Action action) {
+        ObjectNode body = toJson(user);
+        body.set("action", objectMapper.valueToTree(action));
+        return call(node, "POST", ClusterServer.PATH + "/" + id + "/actions", body).thenApply(response -> null);
+    }
+
+    private ObjectNode toJson(User user) {
+        return objectMapper.createObjectNode()
+                .put("username", user.getUsername())
+                .put("fullname", user.getFullname());
+    }
+
+    private JsonNode readTree(byte[] json) {
+        try {
+            return objectMapper.readTree(json);
+        } catch (IOException e) {
+            throw new IllegalStateException("Invalid game received from cluster node", e);
+        }
+    }
+
+    private CompletableFuture<byte[]> call(ClusterNode node, String method, String path, JsonNode body) {
+        CompletableFuture<byte[]> result = new CompletableFuture<>();
+        executor.execute(() -> {
+            try {
+                HttpURLConnection connection = (HttpURLConnection) new URL(node.getUrl() + path).openConnection();
+                connection.setConnectTimeout(CONNECT_TIMEOUT);
+                connection.setReadTimeout(READ_TIMEOUT);
+                connection.setRequestMethod(method);
+                connection.setRequestProperty(ClusterServer.SECRET_HEADER, secret);
+                if (body != null) {
+                    connection.setDoOutput(true);
+                    connection.setRequestProperty("Content-Type", ClusterServer.JSON);
+                    try (OutputStream out = connection.getOutputStream()) {
+                        objectMapper.writeValue(out, body);
+                    }
+                }
+                int status = connection.getResponseCode();
+                InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+                byte[] response = new byte[0];
+                if (in != null) {
+                    try (InputStream stream = in) {
+                        response = ByteStreams.toByteArray(stream);
+                    }
+                }
+                if (status < 400) {
+                    result.complete(response);
+                } else {
+                    result.completeExceptionally(toException(node, status, new String(response, StandardCharsets.UTF_8)));
+                }
+            } catch (Exception e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Maps an error status back to the exception raised on the remote node (see {@link ClusterServer#statusOf(Throwable)})
+     */
+    static Exception toException(ClusterNode node, int status, String message) {
+        switch (status) {
+            case HttpURLConnection.HTTP_BAD_REQUEST:
+                return new IllegalGameState(message);
+            case HttpURLConnection.HTTP_UNAUTHORIZED:
+                return new Unauthorized(message);
+            case HttpURLConnection.HTTP_FORBIDDEN:
+                return new Forbidden(message);
+            case HttpURLConnection.HTTP_NOT_FOUND:
+                return new GameNotFound(message);
+            default:
+                return new IOException("Cluster node " + node.getId() + " responded " + status + ": " + message);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.orange.oswe.demo.trio.cluster;
+
+import lombok.Value;
+
+/**
+ * A node of the cluster: its id (see {@code trio.cluster.node_id}) and the address of its cluster endpoint
+ */
+@Value
+public class ClusterNode {
+    private final int id;
+    private final String host;
+    private final int port;
+
+    /**
+     * Parses a node definition: {@code <id>@<host>:<port>}
+     */
+    public static ClusterNode parse(String definition) {
+        int at = definition.indexOf('@');
+        int colon = definition.lastIndexOf(':');
+        if (at <= 0 || colon < at) {
+            throw new IllegalArgumentException("Invalid cluster node (expected <id>@<host>:<port>): " + definition);
+        }
+        return new ClusterNode(
+                Integer.parseInt(definition.substring(0, at).trim()),
+                definition.substring(at + 1, colon).trim(),
+                Integer.parseInt(definition.substring(colon + 1).trim()));
+    }
+
+    public String getUrl() {
+        return "http://" + host + ":" + port;
+    }
+}
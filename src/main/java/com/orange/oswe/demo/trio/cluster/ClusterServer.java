@@ -0,0 +1,178 @@
+package com.orange.oswe.demo.trio.cluster;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.orange.oswe.demo.trio.domain.User;
+import com.orange.oswe.demo.trio.game.Engine;
+import com.orange.oswe.demo.trio.game.actions.Action;
+import com.orange.oswe.demo.trio.repository.GameRepository;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Internal HTTP endpoint serving the games owned by this node to the other nodes of the cluster
+ * <ul>
+ *     <li>{@code POST /cluster/games}: creates a game ({@code {"username", "fullname"}}),</li>
+ *     <li>{@code GET /cluster/games/{id}}: returns a game,</li>
+ *     <li>{@code POST /cluster/games/{id}/actions}: handles an action ({@code {"username", "fullname", "action"}}).</li>
+ * </ul>
+ * Requests must carry the cluster shared secret in the {@link #SECRET_HEADER} header. Action errors are mapped to the
+ * status of their {@link ResponseStatus} annotation, as done by the public API.
+ */
+public class ClusterServer {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ClusterServer.class);
+
+    static final String PATH = "/cluster/games";
+    static final String SECRET_HEADER = "X-Trio-Cluster-Secret";
+    static final String JSON = "application/json";
+
+    private final GameRepository gameRepository;
+    private final ObjectMapper objectMapper;
+    private final byte[] secret;
+
+    private final HttpServer server;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4, new ThreadFactoryBuilder().setNameFormat("trio-cluster-server-%d").setDaemon(true).build());
+
+    public ClusterServer(InetSocketAddress address, String secret, GameRepository gameRepository, ObjectMapper objectMapper) throws IOException {
+        this.gameRepository = gameRepository;
+        this.objectMapper = objectMapper;
+        this.secret = secret.getBytes(StandardCharsets.UTF_8);
+        server = HttpServer.create(address, 0);
+        server.setExecutor(executor);
+        server.createContext(PATH, this::handle);
+    }
+
+    public void start() {
+        server.start();
+        LOGGER.info("cluster endpoint listening on {}", server.getAddress());
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdown();
+    }
+
+    /**
+     * Actual address (the port is chosen by the system when 0 was given)
+     */
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String provided = exchange.getRequestHeaders().getFirst(SECRET_HEADER);
+            if (provided == null || !MessageDigest.isEqual(secret, provided.getBytes(StandardCharsets.UTF_8))) {
+                respond(exchange, HttpURLConnection.HTTP_UNAUTHORIZED, "Invalid cluster secret");
+                return;
+            }
+            // --- path: "" | "/{id}" | "/{id}/actions"
+            String rest = exchange.getRequestURI().getPath().substring(PATH.length());
+            String[] path = rest.isEmpty() ? new String[0] : rest.substring(1).split("/");
+            String method = exchange.getRequestMethod();
+            if (!rest.isEmpty() && rest.charAt(0) != '/') {
+                respond(exchange, HttpURLConnection.HTTP_NOT_FOUND, "No such endpoint");
+            } else if (path.length == 0 && "POST".equals(method)) {
+                createGame(exchange);
+            } else if (path.length == 1 && "GET".equals(method)) {
+                getGame(exchange, path[0]);
+            } else if (path.length == 2 && "actions".equals(path[1]) && "POST".equals(method)) {
+                handleAction(exchange, path[0]);
+            } else {
+                respond(exchange, HttpURLConnection.HTTP_NOT_FOUND, "No such endpoint");
+            }
+        } catch (Exception e) {
+            LOGGER.error("cluster request {} {} failed", exchange.getRequestMethod(), exchange.getRequestURI(), e);
+            respond(exchange, HttpURLConnection.HTTP_INTERNAL_ERROR, String.valueOf(e.getMessage()));
+        }
+    }
+
+    private void createGame(HttpExchange exchange) throws IOException {
+        User user = readUser(readBody(exchange));
+        Engine engine = gameRepository.createNew(user);
+        respond(exchange, HttpURLConnection.HTTP_CREATED, engine.getView().toJson(objectMapper));
+    }
+
+    private void getGame(HttpExchange exchange, String id) throws IOException {
+        Optional<Engine> engine = gameRepository.findById(id);
+        if (!engine.isPresent()) {
+            respond(exchange, HttpURLConnection.HTTP_NOT_FOUND, "Game " + id + " not found");
+        } else {
+            respond(exchange, HttpURLConnection.HTTP_OK, engine.get().getView().toJson(objectMapper));
+        }
+    }
+
+    private void handleAction(HttpExchange exchange, String id) throws IOException {
+        JsonNode body = readBody(exchange);
+        Optional<Engine> engine = gameRepository.findById(id);
+        if (!engine.isPresent()) {
+            respond(exchange, HttpURLConnection.HTTP_NOT_FOUND, "Game " + id + " not found");
+            return;
+        }
+        Action action = objectMapper.treeToValue(body.get("action"), Action.class);
+        // --- responds once the engine has handled the action, without holding a server thread
+        engine.get().submit(readUser(body), action).whenComplete((result, error) -> {
+            try {
+                if (error == null) {
+                    respond(exchange, HttpURLConnection.HTTP_OK, new byte[0]);
+                } else {
+                    respond(exchange, statusOf(error), String.valueOf(error.getMessage()));
+                }
+            } catch (IOException e) {
+                LOGGER.warn("could not respond to cluster action on game {}", id, e);
+            }
+        });
+    }
+
+    private JsonNode readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            return objectMapper.readTree(in);
+        }
+    }
+
+    private static User readUser(JsonNode body) {
+        return new User(body.get("username").asText(), body.get("fullname").asText(), null);
+    }
+
+    static int statusOf(Throwable error) {
+        ResponseStatus status = AnnotationUtils.findAnnotation(error.getClass(), ResponseStatus.class);
+        return status == null ? HttpURLConnection.HTTP_INTERNAL_ERROR : status.value().value();
+    }
+
+    private static void respond(HttpExchange exchange, int status, String message) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        send(exchange, status, message.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void respond(HttpExchange exchange, int status, byte[] json) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", JSON);
+        send(exchange, status, json);
+    }
+
+    private static void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        if (body.length > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+        exchange.close();
+    }
+}
@@ -0,0 +1,229 @@
+package com.orange.oswe.demo.trio.cluster;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Splitter;
+import com.orange.oswe.demo.trio.domain.User;
+import com.orange.oswe.demo.trio.game.Engine;
+import com.orange.oswe.demo.trio.game.actions.Action;
+import com.orange.oswe.demo.trio.game.actions.GameNotFound;
+import com.orange.oswe.demo.trio.repository.GameIdGenerator;
+import com.orange.oswe.demo.trio.repository.GameRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Routes game requests to the node owning the game
+ * <p>
+ * New games are placed on a {@link HashRing consistent-hash ring} of the cluster nodes: when a node joins, it
+ * immediately takes its share of the new games. The owner node generates the game id, which embeds its node id (see
+ * {@link GameIdGenerator}): requests on existing games are thus routed by their id, and live games are never remapped
+ * (they can't be migrated) when the membership changes.
+ * <p>
+ * Without any configured node ({@code trio.cluster.nodes}), runs as a single node and everything is local. In a cluster,
+ * game events must be relayed through an external broker ({@code trio.broker.relay.enabled}): the players and
+ * spectators of a game may be connected to any node.
+ */
+@Service
+public class ClusterService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ClusterService.class);
+
+    private final GameRepository gameRepository;
+    private final GameIdGenerator idGenerator;
+    private final ObjectMapper objectMapper;
+    private final String secret;
+    private final boolean relayEnabled;
+
+    private final HashRing ring;
+
+    private final ConcurrentMap<Integer, ClusterNode> nodes = new ConcurrentHashMap<>();
+
+    private ClusterNode self;
+
+    private ClusterServer server;
+
+    private ClusterClient client;
+
+    @Autowired
+    public ClusterService(GameRepository gameRepository, GameIdGenerator idGenerator, ObjectMapper objectMapper,
+                          @Value("${trio.cluster.nodes:}") String nodes,
+                          @Value("${trio.cluster.secret:}") String secret,
+                          @Value("${trio.cluster.virtual_nodes:128}") int virtualNodes,
+                          @Value("${trio.broker.relay.enabled:false}") boolean relayEnabled) {
+        this.gameRepository = gameRepository;
+        this.idGenerator = idGenerator;
+        this.objectMapper = objectMapper;
+        this.secret = secret;
+        this.relayEnabled = relayEnabled;
+        this.ring = new HashRing(virtualNodes);
+        for (String definition : Splitter.on(',').trimResults().omitEmptyStrings().split(nodes)) {
+            ClusterNode node = ClusterNode.parse(definition);
+            if (node.getId() == idGenerator.getNodeId()) {
+                self = node;
+            } else {
+                addNode(node);
+            }
+        }
+        if (!this.nodes.isEmpty() && self == null) {
+            throw new IllegalStateException("Node " + idGenerator.getNodeId() + " is not declared in trio.cluster.nodes");
+        }
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (self == null) {
+            LOGGER.info("no cluster configured: running as a single node");
+            ring.add(idGenerator.getNodeId());
+            return;
+        }
+        if (secret.isEmpty()) {
+            throw new IllegalStateException("trio.cluster.secret is required to run in a cluster");
+        }
+        if (!relayEnabled) {
+            // --- with the in-memory broker, events would only reach the subscribers connected to the owner node
+            throw new IllegalStateException("trio.broker.relay.enabled is required to run in a cluster");
+        }
+        server = new ClusterServer(new InetSocketAddress(self.getHost(), self.getPort()), secret, gameRepository, objectMapper);
+        server.start();
+        // --- the port may have been chosen by the system
+        self = new ClusterNode(self.getId(), self.getHost(), server.getAddress().getPort());
+        client = new ClusterClient(secret, objectMapper);
+        ring.add(self.getId());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (server != null) {
+            server.stop();
+            client.shutdown();
+        }
+    }
+
+    /**
+     * Adds a node to the cluster: it will get its share of the games created from now on
+     */
+    public void addNode(ClusterNode node) {
+        if (node.getId() == idGenerator.getNodeId()) {
+            throw new IllegalArgumentException("Node " + node.getId() + " is this node");
+        }
+        nodes.put(node.getId(), node);
+        ring.add(node.getId());
+        LOGGER.info("node {} joined the cluster: {}", node.getId(), ring.nodes());
+    }
+
+    /**
+     * Removes a node from the cluster: no more games will be created on it (and its games become unreachable)
+     */
+    public void removeNode(int nodeId) {
+        ring.remove(nodeId);
+        nodes.remove(nodeId);
+        LOGGER.info("node {} left the cluster: {}", nodeId, ring.nodes());
+    }
+
+    public Optional<ClusterNode> getSelf() {
+        return Optional.ofNullable(self);
+    }
+
+    public Collection<Integer> getNodeIds() {
+        return ring.nodes();
+    }
+
+    /**
+     * Tells whether the given game is owned by this node
+     */
+    public boolean isLocal(String gameId) {
+        return ownerOf(gameId) == idGenerator.getNodeId();
+    }
+
+    /**
+     * Creates a new game on the node chosen by the ring
+     * <p>
+     * The ring only places new games: any key spreads them evenly, and the owner node generates the actual game id.
+     *
+     * @return the game JSON representation
+     */
+    public CompletableFuture<JsonNode> createGame(User user) {
+        int owner = ring.ownerOf(Long.toString(ThreadLocalRandom.current().nextLong()));
+        ClusterNode node = nodes.get(owner);
+        if (node == null) {
+            Engine engine = gameRepository.createNew(user);
+            return CompletableFuture.completedFuture(objectMapper.valueToTree(engine.getView()));
+        }
+        LOGGER.debug("forwarding game creation to node {}", owner);
+        return client.createGame(node, user);
+    }
+
+    /**
+     * Retrieves the given game from its owner node
+     *
+     * @return the game JSON representation (cached per game version)
+     */
+    public CompletableFuture<byte[]> getGame(String gameId) {
+        if (isLocal(gameId)) {
+            Optional<Engine> engine = gameRepository.findById(gameId);
+            if (!engine.isPresent()) {
+                return failed(notFound(gameId));
+            }
+            try {
+                return CompletableFuture.completedFuture(engine.get().getView().toJson(objectMapper));
+            } catch (JsonProcessingException e) {
+                return failed(e);
+            }
+        }
+        ClusterNode node = nodes.get(ownerOf(gameId));
+        if (node == null) {
+            return failed(notFound(gameId));
+        }
+        return client.getGame(node, gameId);
+    }
+
+    /**
+     * Submits the given action to the engine of its owner node
+     */
+    public CompletableFuture<Void> submit(String gameId, User user, Action action) {
+        if (isLocal(gameId)) {
+            Optional<Engine> engine = gameRepository.findById(gameId);
+            return engine.isPresent() ? engine.get().submit(user, action) : failed(notFound(gameId));
+        }
+        ClusterNode node = nodes.get(ownerOf(gameId));
+        if (node == null) {
+            return failed(notFound(gameId));
+        }
+        LOGGER.debug("forwarding {} on game {} to node {}", action, gameId, node.getId());
+        return client.submit(node, gameId, user, action);
+    }
+
+    private static int ownerOf(String gameId) {
+        try {
+            return GameIdGenerator.nodeOf(gameId);
+        } catch (NumberFormatException e) {
+            // --- not a game id
+            return -1;
+        }
+    }
+
+    private static GameNotFound notFound(String gameId) {
+        return new GameNotFound("Game " + gameId + " not found");
+    }
+
+    private static <T> CompletableFuture<T> failed(Throwable error) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(error);
+        return future;
+    }
+}
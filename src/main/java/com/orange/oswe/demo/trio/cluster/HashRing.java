@@ -0,0 +1,68 @@
+package com.orange.oswe.demo.trio.cluster;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Consistent-hash ring of cluster nodes
+ * <p>
+ * Each node is placed at several (virtual) points of the ring; a key belongs to the node of the first point
+ * following its hash. When a node joins, it only takes over the keys between its points and their predecessors, so
+ * the other assignments remain stable.
+ * <p>
+ * Thread-safe: lookups read an immutable snapshot, membership changes (rare) copy it.
+ */
+public class HashRing {
+    private static final HashFunction HASH = Hashing.murmur3_128();
+
+    private final int virtualNodes;
+
+    private volatile NavigableMap<Long, Integer> ring = new TreeMap<>();
+
+    public HashRing(int virtualNodes) {
+        this.virtualNodes = virtualNodes;
+    }
+
+    public synchronized void add(int nodeId) {
+        NavigableMap<Long, Integer> copy = new TreeMap<>(ring);
+        for (int i = 0; i < virtualNodes; i++) {
+            copy.put(hash(nodeId + "#" + i), nodeId);
+        }
+        ring = copy;
+    }
+
+    public synchronized void remove(int nodeId) {
+        NavigableMap<Long, Integer> copy = new TreeMap<>(ring);
+        copy.values().removeIf(id -> id == nodeId);
+        ring = copy;
+    }
+
+    /**
+     * Returns the id of the node owning the given key
+     *
+     * @throws IllegalStateException if the ring is empty
+     */
+    public int ownerOf(String key) {
+        NavigableMap<Long, Integer> snapshot = ring;
+        if (snapshot.isEmpty()) {
+            throw new IllegalStateException("No node in the ring");
+        }
+        Map.Entry<Long, Integer> entry = snapshot.ceilingEntry(hash(key));
+        return (entry == null ? snapshot.firstEntry() : entry).getValue();
+    }
+
+    public Collection<Integer> nodes() {
+        return new TreeSet<>(ring.values());
+    }
+
+    private static long hash(String key) {
+        return HASH.hashString(key, StandardCharsets.UTF_8).asLong();
+    }
+}
@@ -7,6 +7,7 @@
  */
 package com.orange.oswe.demo.trio.config;
 
+import com.orange.oswe.demo.trio.service.UserCacheService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -23,13 +24,10 @@ import org.springframework.security.config.annotation.web.configuration.WebSecur
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
-import org.springframework.security.provisioning.JdbcUserDetailsManager;
 import org.springframework.security.web.authentication.RememberMeServices;
 import org.springframework.security.web.authentication.rememberme.TokenBasedRememberMeServices;
 import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
 
-import javax.sql.DataSource;
-
 /**
  * Class containing all security configuration and beans.
  */
@@ -44,30 +42,28 @@ public class SecurityConfig {
 	 * All other APIs are unauthorized...
 	 */
 	private static final String[] UNSECURED_RESOURCE_LIST = new String[] { "/resources/**" };
-	
-	private static final String AUTHORITIES_BY_USERNAME = "select username, authority from user_authorities "
-			+ "inner join users on user_authorities.user_id = users.id "
-			+ "inner join authorities on user_authorities.authority_id = authorities.id " + "where username = ?";
 
+	/**
+	 * BCrypt with a configurable work factor (see BCryptBenchmark), hashing on a bounded pool of threads
+	 */
 	@Bean
-	public PasswordEncoder passwordEncoder() {
-		return new BCryptPasswordEncoder();
-	}
-
-	@Bean
-	@Autowired
-	public UserDetailsService userDetailsService(DataSource dataSource) {
-		JdbcUserDetailsManager userDetailsService = new JdbcUserDetailsManager();
-		userDetailsService.setDataSource(dataSource);
-		userDetailsService.setAuthoritiesByUsernameQuery(AUTHORITIES_BY_USERNAME);
-		return userDetailsService;
+	public PasswordEncoder passwordEncoder(@Value("${trio.password.bcrypt_strength:10}") int strength,
+										   @Value("${trio.password.threads:0}") int threads,
+										   @Value("${trio.password.queue_size:200}") int queueSize) {
+		// --- default: half the cores, the other half being left to the game engines
+		int nbThreads = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+		return new BoundedPasswordEncoder(new BCryptPasswordEncoder(strength), nbThreads, queueSize);
 	}
 
+	/**
+	 * The {@link UserDetailsService} is the {@link UserCacheService}: logins and remember-me cookies are checked against
+	 * cached users
+	 */
 	@Bean
 	@Autowired
-	public RememberMeServices rememberMeServices(UserDetailsService userDetailsService, @Value("${trio.rememberMe.key}") String rememberMeKey,
+	public RememberMeServices rememberMeServices(UserCacheService userCache, @Value("${trio.rememberMe.key}") String rememberMeKey,
                                                  @Value("${trio.rememberMe.param}") String rememberMeParameter) {
-		TokenBasedRememberMeServices rememberMeServices = new TokenBasedRememberMeServices(rememberMeKey, userDetailsService);
+		TokenBasedRememberMeServices rememberMeServices = new TokenBasedRememberMeServices(rememberMeKey, userCache);
 		rememberMeServices.setParameter(rememberMeParameter);
 		return rememberMeServices;
 	}
@@ -75,9 +71,6 @@ public class SecurityConfig {
 	@Order(Ordered.HIGHEST_PRECEDENCE)
 	@Configuration
 	protected static class ExternalAuthenticationSecurity extends GlobalAuthenticationConfigurerAdapter {
-		@Autowired
-		private DataSource dataSource;
-
 		@Autowired
 		private PasswordEncoder passwordEncoder;
 
@@ -90,11 +83,6 @@ public class SecurityConfig {
 			auth
 				.userDetailsService(userDetailsService)
 					.passwordEncoder(passwordEncoder)
-				.and()
-					.jdbcAuthentication()
-						.authoritiesByUsernameQuery(AUTHORITIES_BY_USERNAME)
-						.passwordEncoder(passwordEncoder)
-						.dataSource(dataSource)
 			;
 			//@formatter:on
 		}
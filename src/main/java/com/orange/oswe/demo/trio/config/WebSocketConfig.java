@@ -1,19 +1,71 @@
 package com.orange.oswe.demo.trio.config;
 
+import com.orange.oswe.demo.trio.game.events.BinaryEventMessageConverter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.converter.MessageConverter;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.security.config.annotation.web.messaging.MessageSecurityMetadataSourceRegistry;
 import org.springframework.security.config.annotation.web.socket.AbstractSecurityWebSocketMessageBrokerConfigurer;
 import org.springframework.web.socket.config.annotation.AbstractWebSocketMessageBrokerConfigurer;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 
+import java.util.Arrays;
+import java.util.List;
+
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig extends AbstractWebSocketMessageBrokerConfigurer {
 
+    private static final Logger logger = LoggerFactory.getLogger(WebSocketConfig.class);
+
+    /**
+     * Whether events are relayed through an external STOMP broker (shared by all nodes), instead of the in-memory
+     * simple broker (one node only)
+     */
+    @Value("${trio.broker.relay.enabled:false}")
+    private boolean relayEnabled;
+
+    /**
+     * Destination prefixes handled by the external broker (depends on the broker: /topic and /queue for ActiveMQ and
+     * RabbitMQ)
+     */
+    @Value("${trio.broker.relay.prefixes:/topic}")
+    private String[] relayPrefixes;
+
+    @Value("${trio.broker.relay.host:localhost}")
+    private String relayHost;
+
+    @Value("${trio.broker.relay.port:61613}")
+    private int relayPort;
+
+    @Value("${trio.broker.relay.login:guest}")
+    private String relayLogin;
+
+    @Value("${trio.broker.relay.passcode:guest}")
+    private String relayPasscode;
+
+    @Value("${trio.broker.relay.virtual_host:#{null}}")
+    private String relayVirtualHost;
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        config.enableSimpleBroker("/down");
+        if (relayEnabled) {
+            logger.info("Relaying {} destinations to STOMP broker {}:{}", Arrays.toString(relayPrefixes), relayHost, relayPort);
+            config.enableStompBrokerRelay(relayPrefixes)
+                    .setRelayHost(relayHost)
+                    .setRelayPort(relayPort)
+                    .setClientLogin(relayLogin)
+                    .setClientPasscode(relayPasscode)
+                    .setSystemLogin(relayLogin)
+                    .setSystemPasscode(relayPasscode)
+                    .setVirtualHost(relayVirtualHost);
+        } else {
+            config.enableSimpleBroker("/down");
+        }
         config.setApplicationDestinationPrefixes("/up");
         config.setUserDestinationPrefix("/user");
     }
@@ -23,12 +75,32 @@ public class WebSocketConfig extends AbstractWebSocketMessageBrokerConfigurer {
         registry.addEndpoint("/trio-websocket").withSockJS();
     }
 
+    @Override
+    public boolean configureMessageConverters(List<MessageConverter> messageConverters) {
+        // --- binary format for clients subscribing to the binary events destination (JSON remains the default)
+        messageConverters.add(new BinaryEventMessageConverter());
+        return true;
+    }
+
     /*
      * See https://docs.spring.io/spring-security/site/docs/current/reference/html/websocket.html
      */
     @Configuration
     public static class WebSocketSecurityConfig extends AbstractSecurityWebSocketMessageBrokerConfigurer {
 
+        @Override
+        protected void configureInbound(MessageSecurityMetadataSourceRegistry messages) {
+            //@formatter:off
+            messages
+                    // game actions need to be authenticated (as their REST counterpart)
+                    .simpDestMatchers("/up/**")
+                        .authenticated()
+                    // all the rest (connection, subscriptions) doesn't require any authentication
+                    .anyMessage()
+                        .permitAll();
+            //@formatter:on
+        }
+
         @Override
         protected boolean sameOriginDisabled() {
             return true;
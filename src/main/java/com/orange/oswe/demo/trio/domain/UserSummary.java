@@ -0,0 +1,18 @@
+/*
+ * Copyright (C) 2017 Orange
+ *
+ * This software is distributed under the terms and conditions of the 'Apache-2.0'
+ * license which can be found in the file 'LICENSE.txt' in this package distribution
+ * or at 'http://www.apache.org/licenses/LICENSE-2.0'.
+ */
+package com.orange.oswe.demo.trio.domain;
+
+/**
+ * Projection of a {@link User} for listings: only selects the listed columns (no password, no authorities)
+ */
+public interface UserSummary {
+
+	String getUsername();
+
+	String getFullname();
+}
@@ -0,0 +1,15 @@
+package com.orange.oswe.demo.trio.game;
+
+import com.orange.oswe.demo.trio.game.events.Event;
+
+/**
+ * Publishes game events to the game subscribers
+ */
+public interface Broadcaster {
+    /**
+     * Publishes the given event to all subscribers of the given game
+     * <p>
+     * Called from the game mailbox: shall not block
+     */
+    void broadcast(String gameId, Event event);
+}
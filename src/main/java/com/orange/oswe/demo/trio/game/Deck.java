@@ -0,0 +1,105 @@
+package com.orange.oswe.demo.trio.game;
+
+import com.orange.oswe.demo.trio.game.model.Card;
+import com.orange.oswe.demo.trio.game.model.Game;
+
+import java.util.Collection;
+import java.util.NoSuchElementException;
+import java.util.OptionalLong;
+import java.util.SplittableRandom;
+
+/**
+ * A deck of cards: a permutation of {@link Card#getValue() card values} packed in a byte array, drawn through a cursor
+ * <p>
+ * Shuffled in place (Fisher-Yates) from a seed: a seed always deals the same deck, thus is enough to replay a game.
+ * <p>
+ * Not thread-safe: owned by an {@link Engine}, only accessed from its mailbox.
+ */
+public class Deck {
+    private final byte[] cards;
+    private int cursor;
+    private final OptionalLong seed;
+
+    Deck(byte[] cards, int cursor, OptionalLong seed) {
+        this.cards = cards;
+        this.cursor = cursor;
+        this.seed = seed;
+    }
+
+    /**
+     * Builds a full deck, shuffled from the given seed
+     */
+    public static Deck shuffled(long seed) {
+        byte[] cards = new byte[Game.TOTAL_NUMBER_OF_CARDS];
+        int n = 0;
+        for (int number = 0; number < 3; number++) {
+            for (int fill = 0; fill < 3; fill++) {
+                for (int shape = 0; shape < 3; shape++) {
+                    for (int color = 0; color < 3; color++) {
+                        cards[n++] = (byte) ((number << 6) + (fill << 4) + (shape << 2) + color);
+                    }
+                }
+            }
+        }
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int i = cards.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            byte card = cards[i];
+            cards[i] = cards[j];
+            cards[j] = card;
+        }
+        return new Deck(cards, 0, OptionalLong.of(seed));
+    }
+
+    /**
+     * Builds a deck of the given cards, in order (not seeded)
+     */
+    public static Deck of(Collection<Card> cards) {
+        byte[] values = new byte[cards.size()];
+        int n = 0;
+        for (Card card : cards) {
+            values[n++] = (byte) card.getValue();
+        }
+        return new Deck(values, 0, OptionalLong.empty());
+    }
+
+    /**
+     * The seed this deck was shuffled from (empty if built from given cards)
+     */
+    public OptionalLong getSeed() {
+        return seed;
+    }
+
+    public boolean isEmpty() {
+        return cursor == cards.length;
+    }
+
+    public int cardsLeft() {
+        return cards.length - cursor;
+    }
+
+    /**
+     * Draws the next card
+     *
+     * @return its {@link Card#getValue() value}
+     * @throws NoSuchElementException if the deck is empty
+     */
+    public int draw() {
+        if (cursor == cards.length) {
+            throw new NoSuchElementException("Deck is empty");
+        }
+        return cards[cursor++] & 0xFF;
+    }
+
+    /**
+     * Returns the value of a card left in the deck, without drawing it
+     *
+     * @param index index among the cards left (0 is the next one drawn)
+     */
+    public int peek(int index) {
+        if (index < 0 || index >= cardsLeft()) {
+            throw new IndexOutOfBoundsException("No card " + index + " in deck: " + cardsLeft() + " left");
+        }
+        return cards[cursor + index] & 0xFF;
+    }
+}
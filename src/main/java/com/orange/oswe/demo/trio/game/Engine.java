@@ -11,47 +11,136 @@ import com.orange.oswe.demo.trio.game.actions.IllegalGameState;
 import com.orange.oswe.demo.trio.game.events.Event;
 import com.orange.oswe.demo.trio.game.model.Card;
 import com.orange.oswe.demo.trio.game.model.Game;
+import com.orange.oswe.demo.trio.game.model.GameView;
 import com.orange.oswe.demo.trio.game.model.Player;
+import com.orange.oswe.demo.trio.game.model.TrioTable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
+ * Game engine
+ * <p>
+ * The game state is only accessed from the engine {@link Mailbox}: user actions ({@link #submit(User, Action)}) and
+ * timeouts are posted to it and processed one at a time, in order. After each of them, the engine publishes an
+ * immutable {@link GameView view} of the game if it changed: other threads shall only read the game through it.
+ *
  * @author PiPo
  */
 public class Engine {
     public static final Logger LOGGER = LoggerFactory.getLogger(Engine.class);
 
     private final Shuffler shuffler;
-    private final SimpMessagingTemplate messagingTemplate;
+    private final Broadcaster broadcaster;
     private final Game game;
-    private final Timer timer = new Timer();
+    private volatile GameView view;
+    private final TimeoutScheduler scheduler;
+    private final Mailbox mailbox;
     private final long inactivityTimeoutDelay;
-    private final InactivityTimeoutListener inactivityTimeoutListener;
-    private SelectionTimeout selectionTimer;
-    private InactivityTimeout inactivityTimeout;
+    private final Listener listener;
+    private TimeoutScheduler.Timeout selectionTimer;
+    private TimeoutScheduler.Timeout queueAdvanceTimer;
+    private TimeoutScheduler.Timeout inactivityTimeout;
     private boolean trioFoundInQueue = false;
-    private Queue<Card> deck;
+    private Deck deck;
+    /**
+     * Selection queue changes not broadcast yet
+     */
+    private int queuePolled;
+    private final List<String> queuePushed = new ArrayList<>();
+    /**
+     * Trio index of the board, kept in sync with each board change
+     */
+    private final TrioFinder trioFinder = new TrioFinder();
 
-    public Engine(String id, User creator, Shuffler shuffler, SimpMessagingTemplate messagingTemplate, long inactivityTimeout, InactivityTimeoutListener timeoutListener) {
-        this.shuffler = shuffler;
-        this.messagingTemplate = messagingTemplate;
-        game = new Game(id, creator.getUsername());
+    public Engine(String id, User creator, Shuffler shuffler, Broadcaster broadcaster, TimeoutScheduler scheduler, Executor executor, long inactivityTimeout, Listener listener) {
+        this(new Game(id, creator.getUsername()), shuffler, broadcaster, scheduler, executor, inactivityTimeout, listener);
         game.add(new Player(creator));
-        this.inactivityTimeoutDelay = inactivityTimeout;
-        this.inactivityTimeoutListener = timeoutListener;
         rearmInactivityTimeout();
+        publish();
     }
 
+    private Engine(Game game, Shuffler shuffler, Broadcaster broadcaster, TimeoutScheduler scheduler, Executor executor, long inactivityTimeout, Listener listener) {
+        this.shuffler = shuffler;
+        this.broadcaster = broadcaster;
+        this.scheduler = scheduler;
+        this.mailbox = new Mailbox(executor);
+        this.game = game;
+        this.inactivityTimeoutDelay = inactivityTimeout;
+        this.listener = listener;
+    }
+
+    /**
+     * Restores an engine from a snapshot (see {@link #snapshot()}), re-arming its pending timeouts
+     */
+    public static Engine restore(EngineSnapshot snapshot, Shuffler shuffler, Broadcaster broadcaster, TimeoutScheduler scheduler, Executor executor, long inactivityTimeout, Listener listener) {
+        Engine engine = new Engine(snapshot.getGame(), shuffler, broadcaster, scheduler, executor, inactivityTimeout, listener);
+        engine.deck = snapshot.getDeck();
+        engine.trioFoundInQueue = snapshot.isTrioFoundInQueue();
+        engine.trioFinder.load(engine.game);
+        engine.publish();
+        engine.mailbox.execute(() -> engine.rearmTimeouts(snapshot));
+        return engine;
+    }
+
+    /**
+     * Returns the live game
+     * <p>
+     * Shall only be accessed from the game mailbox: use {@link #getView()} from other threads
+     */
     public Game getGame() {
         return game;
     }
 
+    /**
+     * Returns the latest published view of the game
+     */
+    public GameView getView() {
+        return view;
+    }
+
+    /**
+     * Publishes a new view of the game if it changed (every change is broadcast, thus increments the game seq)
+     * <p>
+     * Shall be called from the game mailbox, at the end of each task
+     */
+    private void publish() {
+        GameView previous = view;
+        if (previous == null || previous.getSeq() != game.getSeq()) {
+            view = GameView.of(game, previous);
+        }
+    }
+
+    /**
+     * Cancels all pending timeouts
+     * <p>
+     * Shall be called from the game mailbox (e.g. {@link Listener#onInactivityTimeout(Engine)}) when the game is dropped
+     */
+    public void shutdown() {
+        LOGGER.info("Shutting down game {}", game.getId());
+        if (selectionTimer != null) {
+            selectionTimer.cancel();
+            selectionTimer = null;
+        }
+        if (queueAdvanceTimer != null) {
+            queueAdvanceTimer.cancel();
+            queueAdvanceTimer = null;
+        }
+        if (inactivityTimeout != null) {
+            inactivityTimeout.cancel();
+            inactivityTimeout = null;
+        }
+    }
+
     private void broadcast(Event event) {
+        game.setSeq(game.getSeq() + 1);
+        event.setSeq(game.getSeq());
         LOGGER.info(">>> {}", event);
-        messagingTemplate.convertAndSend("/down/games/" + game.getId(), event);
+        listener.onEvent(this, event);
+        broadcaster.broadcast(game.getId(), event);
     }
 
     // =====================================================
@@ -63,23 +152,25 @@ public class Engine {
             LOGGER.error("User {} tries to join during the game. Reject.", player);
             throw new IllegalGameState("You cannot join a game that has already started.");
         }
-        if (game.getPlayers().containsKey(player.getId())) {
+        if (game.hasPlayer(player.getId())) {
             LOGGER.warn("User {} tries to join a game he is already part of. Ignore.", player);
             return;
         }
         game.add(player);
+        listener.onPlayerJoined(this, player);
         // --- broadcast "node joins" message to all participating nodes
         broadcast(Event.playerJoined(player));
     }
 
     private void playerLeaves(Player player) throws IllegalGameState {
         LOGGER.info("User {} leaves", player);
-        if (!game.getPlayers().containsKey(player.getId())) {
+        if (!game.hasPlayer(player.getId())) {
             LOGGER.warn("User {} tries to quit a game he is not part of. Ignore.", player);
             return;
         }
         // --- change player state
         game.remove(player);
+        listener.onPlayerLeft(this, player);
 
         // --- broadcast event
         broadcast(Event.playerLeft(player));
@@ -92,18 +183,16 @@ public class Engine {
         checkPlaying(player);
         checkPlayer(player);
 
-        synchronized (game.getQueue()) {
-            if (game.getQueue().contains(player.getId())) {
-                LOGGER.error("User {} declares a trio, but was already in the selection queue. Reject.", player);
-                throw new IllegalGameState("You already declared a trio.");
-            }
-            // extra user to selection queue
-            game.getQueue().add(player.getId());
-            if (game.getQueue().size() == 1) {
-                advanceSelectionQueue();
-            } else {
-                broadcast(Event.playerDeclaresTrio(player, game.getQueue()));
-            }
+        if (game.isQueued(player.getId())) {
+            LOGGER.error("User {} declares a trio, but was already in the selection queue. Reject.", player);
+            throw new IllegalGameState("You already declared a trio.");
+        }
+        // extra user to selection queue
+        pushToQueue(player.getId());
+        if (game.queueSize() == 1) {
+            advanceSelectionQueue();
+        } else {
+            broadcast(Event.playerDeclaresTrio(player, takeQueueDelta()));
         }
     }
 
@@ -115,7 +204,7 @@ public class Engine {
     }
 
     private void checkPlayer(Player player) throws Forbidden {
-        if (!game.getPlayers().containsKey(player.getId())) {
+        if (!game.hasPlayer(player.getId())) {
             LOGGER.error("Non player user {} sent game actions. Reject.", player);
             throw new Forbidden("You are not part of this game.");
         }
@@ -131,32 +220,30 @@ public class Engine {
     private void playerTimeoutsTrioSelection(Player player) throws ActionException {
         checkPlaying(player);
         checkPlayer(player);
-        synchronized (game.getQueue()) {
-            if (game.getQueue().isEmpty()) {
-                LOGGER.error("playerTimeoutsTrioSelection({}): queue is empty.", player);
-                throw new IllegalGameState("Selection queue is empty.");
-            }
-            if (!game.getQueue().peek().equals(player.getId())) {
-                LOGGER.error("playerTimeoutsTrioSelection({}): not queue player.", player);
-                throw new IllegalGameState("You're not the queue player.");
-            }
+        if (game.queueSize() == 0) {
+            LOGGER.error("playerTimeoutsTrioSelection({}): queue is empty.", player);
+            throw new IllegalGameState("Selection queue is empty.");
+        }
+        if (!game.queueHead().equals(player.getId())) {
+            LOGGER.error("playerTimeoutsTrioSelection({}): not queue player.", player);
+            throw new IllegalGameState("You're not the queue player.");
+        }
 
-            // --- remove player from selection queue
-            game.getQueue().remove();
-            // --- stop backup timeout
-            if (selectionTimer == null) {
-                LOGGER.warn("playerTimeoutsTrioSelection({}): timeout not set", player);
-            } else {
-                selectionTimer.cancel();
-                selectionTimer = null;
-            }
+        // --- remove player from selection queue
+        pollFromQueue();
+        // --- stop backup timeout
+        if (selectionTimer == null) {
+            LOGGER.warn("playerTimeoutsTrioSelection({}): timeout not set", player);
+        } else {
+            selectionTimer.cancel();
+            selectionTimer = null;
+        }
 
-            // --- update player score and broadcast event
-            broadcast(Event.trioSelectionTimeouted(player, game.incrScore(player.getId(), -1), game.getQueue()));
+        // --- update player score and broadcast event
+        broadcast(Event.trioSelectionTimeouted(player, game.incrScore(player.getId(), -1), takeQueueDelta()));
 
-            // --- process selection queue
-            advanceSelectionQueue();
-        }
+        // --- process selection queue
+        advanceSelectionQueue();
     }
 
     /*
@@ -165,31 +252,29 @@ public class Engine {
     private void playerGaveUpTrioSelection(Player player) throws ActionException {
         checkPlaying(player);
         checkPlayer(player);
-        synchronized (game.getQueue()) {
-            if (game.getQueue().isEmpty()) {
-                LOGGER.error("playerGaveUpTrioSelection({}): queue is empty.", player);
-                throw new IllegalGameState("Selection queue is empty.");
-            }
-            if (!game.getQueue().peek().equals(player.getId())) {
-                LOGGER.error("playerGaveUpTrioSelection({}): not queue player.", player);
-                throw new IllegalGameState("You're not the queue player.");
-            }
+        if (game.queueSize() == 0) {
+            LOGGER.error("playerGaveUpTrioSelection({}): queue is empty.", player);
+            throw new IllegalGameState("Selection queue is empty.");
+        }
+        if (!game.queueHead().equals(player.getId())) {
+            LOGGER.error("playerGaveUpTrioSelection({}): not queue player.", player);
+            throw new IllegalGameState("You're not the queue player.");
+        }
 
-            // --- remove player from selection queue
-            game.getQueue().poll();
-            if (selectionTimer == null) {
-                LOGGER.warn("playerGaveUpTrioSelection({}): timeout not set", player);
-            } else {
-                selectionTimer.cancel();
-                selectionTimer = null;
-            }
+        // --- remove player from selection queue
+        pollFromQueue();
+        if (selectionTimer == null) {
+            LOGGER.warn("playerGaveUpTrioSelection({}): timeout not set", player);
+        } else {
+            selectionTimer.cancel();
+            selectionTimer = null;
+        }
 
-            // --- update player score and broadcast event
-            broadcast(Event.trioSelectionGiveUp(player, game.incrScore(player.getId(), -1), game.getQueue()));
+        // --- update player score and broadcast event
+        broadcast(Event.trioSelectionGiveUp(player, game.incrScore(player.getId(), -1), takeQueueDelta()));
 
-            // --- process selection queue
-            advanceSelectionQueue();
-        }
+        // --- process selection queue
+        advanceSelectionQueue();
     }
 
     /*
@@ -199,31 +284,29 @@ public class Engine {
         checkPlaying(player);
         checkPlayer(player);
 
-        synchronized (game.getQueue()) {
-            if (game.getQueue().isEmpty()) {
-                LOGGER.error("playerWithdrawsTrioSelection({}): queue is empty.", player);
-                throw new IllegalGameState("Selection queue is empty.");
-            }
-            if (!game.getQueue().peek().equals(player.getId())) {
-                LOGGER.error("playerWithdrawsTrioSelection({}): not queue player.", player);
-                throw new IllegalGameState("You're not the queue player.");
-            }
+        if (game.queueSize() == 0) {
+            LOGGER.error("playerWithdrawsTrioSelection({}): queue is empty.", player);
+            throw new IllegalGameState("Selection queue is empty.");
+        }
+        if (!game.queueHead().equals(player.getId())) {
+            LOGGER.error("playerWithdrawsTrioSelection({}): not queue player.", player);
+            throw new IllegalGameState("You're not the queue player.");
+        }
 
-            // --- remove player from selection queue
-            game.getQueue().poll();
-            if (selectionTimer == null) {
-                LOGGER.warn("playerWithdrawsTrioSelection({}): timeout not set", player);
-            } else {
-                selectionTimer.cancel();
-                selectionTimer = null;
-            }
+        // --- remove player from selection queue
+        pollFromQueue();
+        if (selectionTimer == null) {
+            LOGGER.warn("playerWithdrawsTrioSelection({}): timeout not set", player);
+        } else {
+            selectionTimer.cancel();
+            selectionTimer = null;
+        }
 
-            // --- broadcast event
-            broadcast(Event.trioSelectionWithdraw(player, game.getQueue()));
+        // --- broadcast event
+        broadcast(Event.trioSelectionWithdraw(player, takeQueueDelta()));
 
-            // --- process selection queue
-            advanceSelectionQueue();
-        }
+        // --- process selection queue
+        advanceSelectionQueue();
     }
 
     /*
@@ -233,78 +316,112 @@ public class Engine {
         checkPlaying(player);
         checkPlayer(player);
 
-        synchronized (game.getQueue()) {
-            if (game.getQueue().isEmpty()) {
-                LOGGER.error("playerSelectsTrio({}): queue is empty.", player);
-                throw new IllegalGameState("Selection queue is empty.");
-            }
-            if (!game.getQueue().peek().equals(player.getId())) {
-                LOGGER.error("playerSelectsTrio({}): not queue player.", player);
-                throw new IllegalGameState("You're not the queue player.");
-            }
+        if (game.queueSize() == 0) {
+            LOGGER.error("playerSelectsTrio({}): queue is empty.", player);
+            throw new IllegalGameState("Selection queue is empty.");
+        }
+        if (!game.queueHead().equals(player.getId())) {
+            LOGGER.error("playerSelectsTrio({}): not queue player.", player);
+            throw new IllegalGameState("You're not the queue player.");
+        }
 
-            // --- remove player from selection queue
-            game.getQueue().poll();
-            // --- cancel timer
-            if (selectionTimer == null) {
-                LOGGER.warn("playerSelectsTrio({}): timeout not set", player);
-            } else {
-                selectionTimer.cancel();
-                selectionTimer = null;
-            }
+        // --- remove player from selection queue
+        pollFromQueue();
+        // --- cancel timer
+        if (selectionTimer == null) {
+            LOGGER.warn("playerSelectsTrio({}): timeout not set", player);
+        } else {
+            selectionTimer.cancel();
+            selectionTimer = null;
+        }
 
-            // --- check selection is a trio
-            Card card1 = game.getBoard()[cardPositions[0]];
-            Card card2 = game.getBoard()[cardPositions[1]];
-            Card card3 = game.getBoard()[cardPositions[2]];
-            if(card1 == null || card2 == null || card3 == null) {
-                LOGGER.error("playerSelectsTrio({}): at least one position not occupied.", player);
-                throw new IllegalGameState("You've selected a non occupied slot.");
-            }
-            List<Card.Attribute> faulty = Card.isTrio(card1, card2, card3);
-            if (faulty.isEmpty()) {
-                LOGGER.info("playerSelectsTrio({}): valid trio", player);
-                // --- this is a trio: remove the cards and refill playing ground
-                game.getBoard()[cardPositions[0]] = null;
-                game.getBoard()[cardPositions[1]] = null;
-                game.getBoard()[cardPositions[2]] = null;
-
-                // --- update player score and broadcast event
-                broadcast(Event.trioSelectionSuccess(player, cardPositions, game.incrScore(player.getId(), 3), game.getQueue()));
-                trioFoundInQueue = true;
-                // wait 1.5s for the trio found animation to occur before advancing the selection queue...
-                timer.schedule(new TimerTask() {
-                    @Override
-                    public void run() {
-                        // --- process selection queue
-                        advanceSelectionQueue();
-                    }
-                }, 1600);
+        // --- check selection is a trio
+        int card1 = game.cardAt(cardPositions[0]);
+        int card2 = game.cardAt(cardPositions[1]);
+        int card3 = game.cardAt(cardPositions[2]);
+        if(card1 == Game.NO_CARD || card2 == Game.NO_CARD || card3 == Game.NO_CARD) {
+            LOGGER.error("playerSelectsTrio({}): at least one position not occupied.", player);
+            throw new IllegalGameState("You've selected a non occupied slot.");
+        }
+        if (TrioTable.isTrio(card1, card2, card3)) {
+            LOGGER.info("playerSelectsTrio({}): valid trio", player);
+            // --- this is a trio: remove the cards and refill playing ground
+            removeCard(cardPositions[0]);
+            removeCard(cardPositions[1]);
+            removeCard(cardPositions[2]);
+
+            // --- update player score and broadcast event
+            broadcast(Event.trioSelectionSuccess(player, cardPositions, game.incrScore(player.getId(), 3), takeQueueDelta()));
+            trioFoundInQueue = true;
+            // wait 1.5s for the trio found animation to occur before advancing the selection queue...
+            queueAdvanceTimer = schedule(new QueueAdvanceTimeout(), 1600);
+            return;
+        } else {
+            List<Card.Attribute> faultyAttributes = Card.Attribute.fromMask(Card.faultyAttributes(card1, card2, card3));
+            LOGGER.info("playerSelectsTrio({}): not a trio on attributes {}", player, faultyAttributes);
+            // --- update player score and broadcast event
+            broadcast(Event.trioSelectionFailure(player, faultyAttributes, game.incrScore(player.getId(), -1), takeQueueDelta()));
+        }
+
+        // --- process selection queue
+        advanceSelectionQueue();
+    }
+
+    private class QueueAdvanceTimeout extends MailboxTimeout {
+        @Override
+        void expire() {
+            if (isStale(queueAdvanceTimer)) {
+                // --- stale: cancelled meanwhile
                 return;
-            } else {
-                LOGGER.info("playerSelectsTrio({}): not a trio on attributes {}", player, faulty);
-                // --- update player score and broadcast event
-                broadcast(Event.trioSelectionFailure(player, faulty, game.incrScore(player.getId(), -1), game.getQueue()));
             }
-
+            queueAdvanceTimer = null;
             // --- process selection queue
             advanceSelectionQueue();
+            publish();
         }
     }
 
+    // --- selection queue changes are tracked to be broadcast as deltas
+    private void pushToQueue(String playerId) {
+        game.enqueue(playerId);
+        queuePushed.add(playerId);
+    }
+
+    private void pollFromQueue() {
+        game.dequeue();
+        queuePolled++;
+    }
+
+    private void clearQueue() {
+        game.clearQueue();
+        queuePolled = 0;
+        queuePushed.clear();
+    }
+
+    /**
+     * Returns the selection queue changes since the previous call
+     */
+    private Event.QueueDelta takeQueueDelta() {
+        if (queuePolled == 0 && queuePushed.isEmpty()) {
+            return Event.QueueDelta.none();
+        }
+        Event.QueueDelta delta = new Event.QueueDelta(queuePolled, queuePushed.isEmpty() ? Collections.emptyList() : new ArrayList<>(queuePushed));
+        queuePolled = 0;
+        queuePushed.clear();
+        return delta;
+    }
+
     private void advanceSelectionQueue() {
         // --- process next player in queue
-        if (game.getQueue().isEmpty()) {
+        if (game.queueSize() == 0) {
             // --- stack is now empty: reset and refill playground
             trioFoundInQueue = false;
             refillBoard();
         } else {
-            String playerId = game.getQueue().peek();
-            Player player = game.getPlayers().get(playerId);
-            broadcast(Event.playerSelectsTrio(player, game.getQueue()));
+            Player player = game.getPlayer(game.queueHead());
+            broadcast(Event.playerSelectsTrio(player, takeQueueDelta()));
             // --- start selection timeout
-            selectionTimer = new SelectionTimeout(player);
-            timer.schedule(selectionTimer, 5000);
+            selectionTimer = schedule(new SelectionTimeout(player), 5000);
         }
     }
 
@@ -320,8 +437,14 @@ public class Engine {
         broadcast(Event.gameStateChanged(Game.State.playing));
 
         deck = shuffler.shuffle();
+        if (deck.getSeed().isPresent()) {
+            LOGGER.info("Game {} dealt from seed {}", game.getId(), deck.getSeed().getAsLong());
+            listener.onShuffled(this, deck.getSeed().getAsLong());
+        }
 
         game.reset();
+        trioFinder.clear();
+        clearQueue();
         game.setState(Game.State.playing);
         trioFoundInQueue = false;
 
@@ -337,6 +460,8 @@ public class Engine {
             throw new IllegalGameState("This game cannot be restarted.");
         }
         game.reset();
+        trioFinder.clear();
+        clearQueue();
 
         game.setState(Game.State.preparing);
         broadcast(Event.gameStateChanged(Game.State.preparing));
@@ -353,7 +478,7 @@ public class Engine {
         int nbFree = 0;
         int[] posFree = new int[12];
         for (int i = 0; i < Game.FULL_BOARD_SIZE; i++) {
-            if (game.getBoard()[i] == null) {
+            if (!game.hasCard(i)) {
                 if (i < Game.NORMAL_BOARD_SIZE)
                     posFree[nbFree++] = i;
             } else {
@@ -375,8 +500,7 @@ public class Engine {
 
             // --- move card on board
             for (int i = 0; i < nbReorg; i++) {
-                game.getBoard()[posDest[i]] = game.getBoard()[posReorg[i]];
-                game.getBoard()[posReorg[i]] = null;
+                moveCard(posReorg[i], posDest[i]);
             }
         }
 
@@ -386,8 +510,7 @@ public class Engine {
         }
 
         // --- is there a trio?
-        List<int[]> trios = findTrios(false);
-        if (trios.isEmpty()) {
+        if (!trioFinder.hasTrio()) {
             if (!game.hasCardsLeft()) {
                 LOGGER.info("no trio on board and no more cards: end of game");
                 triggerEndOfGame();
@@ -400,8 +523,7 @@ public class Engine {
             // --- draw and replace cards until a Trio is found
             int replaceFromPos = 0;
             while (true) {
-                trios = findTrios(false);
-                if (!trios.isEmpty()) {
+                if (trioFinder.hasTrio()) {
                     break;
                 }
                 if (!game.hasCardsLeft()) {
@@ -417,38 +539,26 @@ public class Engine {
     }
 
     private void triggerEndOfGame() {
-        game.getQueue().clear();
+        clearQueue();
         game.setState(Game.State.over);
         broadcast(Event.gameStateChanged(Game.State.over));
     }
 
-    private List<int[]> findTrios(boolean findAll) {
-        List<int[]> trios = new ArrayList<>();
-        for (int i = 0; i < Game.FULL_BOARD_SIZE - 2; i++) {
-            Card c1 = game.getBoard()[i];
-            if (c1 == null)
-                continue;
-            // --- find trios with card i
-            for (int j = i + 1; j < Game.FULL_BOARD_SIZE - 1; j++) {
-                Card c2 = game.getBoard()[j];
-                if (c2 == null)
-                    continue;
-                // --- find trios with card i+j
-                for (int k = j + 1; k < Game.FULL_BOARD_SIZE; k++) {
-                    Card c3 = game.getBoard()[k];
-                    if (c3 == null)
-                        continue;
-                    // --- is i+j+k a trio?
-                    if (Card.isTrio(c1, c2, c3).isEmpty()) {
-                        trios.add(new int[]{i, j, k});
-                        if (!findAll) {
-                            return trios;
-                        }
-                    }
-                }
-            }
-        }
-        return trios;
+    // --- board changes go through these: the trio index is updated along
+    private void placeCard(int position, Card card) {
+        trioFinder.remove(position);
+        game.setCard(position, card.getValue());
+        trioFinder.put(position, card.getValue());
+    }
+
+    private void removeCard(int position) {
+        game.removeCard(position);
+        trioFinder.remove(position);
+    }
+
+    private void moveCard(int from, int to) {
+        game.moveCard(from, to);
+        trioFinder.move(from, to);
     }
 
     /**
@@ -466,10 +576,12 @@ public class Engine {
             List drawnCardsList = new ArrayList();
             int cardsDrawn = 0;
             for (int i = 0; i < Game.FULL_BOARD_SIZE; i++) {
-                if (game.getBoard()[i] == null) {
+                if (!game.hasCard(i)) {
                     // --- draw a card
                     game.decrCardsLeft(1);
-                    drawnCardsList.add(game.getBoard()[i] = deck.remove());
+                    Card card = Card.of(deck.draw());
+                    placeCard(i, card);
+                    drawnCardsList.add(card);
                     pos[cardsDrawn] = i;
                     cardsDrawn++;
                     if (cardsDrawn == cardsToDraw || deck.isEmpty())
@@ -490,7 +602,8 @@ public class Engine {
             for (int i = 0; i < cardsToDraw; i++) {
                 game.decrCardsLeft(1);
                 pos[i] = replaceFromPos;
-                drawnCards[i] = game.getBoard()[replaceFromPos] = deck.remove();
+                drawnCards[i] = Card.of(deck.draw());
+                placeCard(replaceFromPos, drawnCards[i]);
                 replaceFromPos++;
             }
         }
@@ -499,8 +612,36 @@ public class Engine {
         return drawnCards.length;
     }
 
-    public void handle(User user, Action action) throws ActionException {
+    /**
+     * Posts a user action to the game mailbox
+     *
+     * @return a future completed once the action has been handled, or completed exceptionally with the
+     * {@link ActionException} if the action was rejected
+     */
+    public CompletableFuture<Void> submit(User user, Action action) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        mailbox.execute(() -> {
+            // --- the view is published before completing, so that the caller sees the outcome
+            try {
+                handle(user, action);
+                publish();
+                result.complete(null);
+            } catch (Exception e) {
+                publish();
+                result.completeExceptionally(e);
+            }
+        }, result);
+        return result;
+    }
+
+    /**
+     * Handles a user action
+     * <p>
+     * Shall only be called from the game mailbox (see {@link #submit(User, Action)})
+     */
+    void handle(User user, Action action) throws ActionException {
         LOGGER.info("<<< from {}: {}", user.getUsername(), action);
+        listener.onAction(this, user, action);
         rearmInactivityTimeout();
         Player player = new Player(user);
         switch (action.getType()) {
@@ -532,47 +673,166 @@ public class Engine {
         }
     }
 
+    // ==================================================================
+    // === timeouts
+    // ==================================================================
+    /**
+     * Timeout expiring in the game mailbox
+     * <p>
+     * Knows its own {@link TimeoutScheduler.Timeout}: it is stale if the engine field no longer holds that very timeout
+     * (cancelled or replaced meanwhile, even by a newer timeout that also expired).
+     */
+    private abstract class MailboxTimeout implements Runnable {
+        /**
+         * set from the mailbox, right after scheduling, thus before {@link #expire()} runs
+         */
+        private TimeoutScheduler.Timeout timeout;
+
+        public void run() {
+            mailbox.execute(this::expire);
+        }
+
+        boolean isStale(TimeoutScheduler.Timeout current) {
+            return timeout == null || current != timeout;
+        }
+
+        abstract void expire();
+    }
+
+    private TimeoutScheduler.Timeout schedule(MailboxTimeout task, long delayMs) {
+        task.timeout = scheduler.schedule(task, delayMs);
+        return task.timeout;
+    }
+
     // ==================================================================
     // === selection timeout
     // ==================================================================
-    private class SelectionTimeout extends TimerTask {
+    private class SelectionTimeout extends MailboxTimeout {
         private Player player;
 
         public SelectionTimeout(Player player) {
             this.player = player;
         }
 
-        public void run() {
+        @Override
+        void expire() {
+            if (isStale(selectionTimer)) {
+                // --- stale: selection ended meanwhile
+                return;
+            }
             LOGGER.warn("Selection timeout reached for player {}.", player);
             try {
                 playerTimeoutsTrioSelection(player);
             } catch (Exception e) {
                 LOGGER.error("Error occurred while triggering selection timeout for {}", player, e);
+            } finally {
+                publish();
             }
         }
     }
 
     // ==================================================================
-    // === inactivity timeout
+    // === snapshot
+    // ==================================================================
+    /**
+     * Takes a snapshot of this engine (game, deck and pending timeouts)
+     * <p>
+     * The snapshot is taken from the game mailbox, thus is consistent
+     *
+     * @return a future completed with the {@link EngineSnapshot#encode(EngineSnapshot) encoded} snapshot
+     */
+    public CompletableFuture<byte[]> snapshot() {
+        CompletableFuture<byte[]> result = new CompletableFuture<>();
+        mailbox.execute(() -> {
+            try {
+                result.complete(EngineSnapshot.encode(new EngineSnapshot(game, deck, trioFoundInQueue,
+                        remainingMillis(selectionTimer), remainingMillis(queueAdvanceTimer), remainingMillis(inactivityTimeout))));
+            } catch (Exception e) {
+                result.completeExceptionally(e);
+            }
+        }, result);
+        return result;
+    }
+
+    private static int remainingMillis(TimeoutScheduler.Timeout timeout) {
+        return timeout == null || timeout.isCancelled() ? -1 : (int) Math.min(Integer.MAX_VALUE, timeout.getRemainingMillis());
+    }
+
+    private void rearmTimeouts(EngineSnapshot snapshot) {
+        if (snapshot.getSelectionTimeout() >= 0 && game.queueSize() != 0) {
+            selectionTimer = schedule(new SelectionTimeout(game.getPlayer(game.queueHead())), snapshot.getSelectionTimeout());
+        }
+        if (snapshot.getQueueAdvanceTimeout() >= 0) {
+            queueAdvanceTimer = schedule(new QueueAdvanceTimeout(), snapshot.getQueueAdvanceTimeout());
+        }
+        if (snapshot.getInactivityTimeout() >= 0) {
+            inactivityTimeout = schedule(new InactivityTimeout(), snapshot.getInactivityTimeout());
+        } else {
+            rearmInactivityTimeout();
+        }
+    }
+
+    // ==================================================================
+    // === listener
     // ==================================================================
-    public interface InactivityTimeoutListener {
+    /**
+     * Engine lifecycle listener
+     * <p>
+     * Callbacks are invoked from the game mailbox
+     */
+    public interface Listener {
+        /**
+         * The game has been inactive for too long
+         */
         void onInactivityTimeout(Engine engine);
+
+        default void onPlayerJoined(Engine engine, Player player) {
+        }
+
+        default void onPlayerLeft(Engine engine, Player player) {
+        }
+
+        /**
+         * An action is about to be handled
+         */
+        default void onAction(Engine engine, User user, Action action) {
+        }
+
+        /**
+         * An event is about to be broadcast
+         */
+        default void onEvent(Engine engine, Event event) {
+        }
+
+        /**
+         * A new deck was shuffled from the given seed (recording it allows to deal the same cards again)
+         */
+        default void onShuffled(Engine engine, long seed) {
+        }
     }
 
+    // ==================================================================
+    // === inactivity timeout
+    // ==================================================================
+
     private void rearmInactivityTimeout() {
         if(inactivityTimeout != null) {
             inactivityTimeout.cancel();
             inactivityTimeout = null;
         }
         // in 10 min
-        inactivityTimeout = new InactivityTimeout();
-        timer.schedule(inactivityTimeout, inactivityTimeoutDelay);
+        inactivityTimeout = schedule(new InactivityTimeout(), inactivityTimeoutDelay);
     }
 
-    private class InactivityTimeout extends TimerTask {
-        public void run() {
+    private class InactivityTimeout extends MailboxTimeout {
+        @Override
+        void expire() {
+            if (isStale(inactivityTimeout)) {
+                // --- stale: re-armed meanwhile
+                return;
+            }
             LOGGER.warn("Inactivity timeout reached for game {}.", game.getId());
-            inactivityTimeoutListener.onInactivityTimeout(Engine.this);
+            listener.onInactivityTimeout(Engine.this);
         }
     }
 
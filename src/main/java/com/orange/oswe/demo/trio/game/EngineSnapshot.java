@@ -0,0 +1,131 @@
+package com.orange.oswe.demo.trio.game;
+
+import com.orange.oswe.demo.trio.game.model.Game;
+import com.orange.oswe.demo.trio.game.model.Player;
+import lombok.Value;
+
+import java.io.*;
+import java.time.Instant;
+import java.util.Map;
+import java.util.OptionalLong;
+
+/**
+ * State of an {@link Engine}, as saved across restarts: the game, the deck and the pending timeouts
+ * <p>
+ * Binary format (big endian, strings in modified UTF-8):
+ * <pre>
+ * version(1)
+ * id, ownerId, created(8, epoch ms), state(1), seq(8)
+ * players: count(2), { id, name }*
+ * scores: count(2), { playerId, score(4) }*
+ * queue: count(2), { playerId }*
+ * cardsLeft(1), board(15: card value or 0xFF if empty)
+ * deck: seeded(1), seed(8), count(1), { card value(1) }* (version 1: no seeded flag nor seed)
+ * trioFoundInQueue(1), selection, queue advance and inactivity timeouts(3 x 4: remaining ms or -1 if none)
+ * </pre>
+ * Timeouts are saved as remaining delays: the time the node was down is not charged to the players.
+ */
+@Value
+public class EngineSnapshot {
+    private static final int VERSION = 2;
+    private static final int NO_CARD = 0xFF;
+
+    private final Game game;
+    private final Deck deck;
+    private final boolean trioFoundInQueue;
+    /**
+     * remaining delays (in ms) of the pending timeouts, or -1 if none
+     */
+    private final int selectionTimeout;
+    private final int queueAdvanceTimeout;
+    private final int inactivityTimeout;
+
+    public static byte[] encode(EngineSnapshot snapshot) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        DataOutputStream out = new DataOutputStream(bytes);
+        Game game = snapshot.game;
+        out.writeByte(VERSION);
+        out.writeUTF(game.getId());
+        out.writeUTF(game.getOwnerId());
+        out.writeLong(game.getCreated().toEpochMilli());
+        out.writeByte(game.getState().ordinal());
+        out.writeLong(game.getSeq());
+
+        Map<String, Player> players = game.getPlayers();
+        out.writeShort(players.size());
+        for (Player player : players.values()) {
+            out.writeUTF(player.getId());
+            out.writeUTF(player.getName() == null ? "" : player.getName());
+        }
+        Map<String, Integer> scores = game.getScores();
+        out.writeShort(scores.size());
+        for (Map.Entry<String, Integer> score : scores.entrySet()) {
+            out.writeUTF(score.getKey());
+            out.writeInt(score.getValue());
+        }
+        out.writeShort(game.queueSize());
+        for (String playerId : game.getQueue()) {
+            out.writeUTF(playerId);
+        }
+
+        out.writeByte(game.getCardsLeft());
+        for (int i = 0; i < Game.FULL_BOARD_SIZE; i++) {
+            int value = game.cardAt(i);
+            out.writeByte(value == Game.NO_CARD ? NO_CARD : value);
+        }
+        Deck deck = snapshot.deck;
+        out.writeBoolean(deck != null && deck.getSeed().isPresent());
+        out.writeLong(deck != null && deck.getSeed().isPresent() ? deck.getSeed().getAsLong() : 0);
+        out.writeByte(deck == null ? 0 : deck.cardsLeft());
+        for (int i = 0; deck != null && i < deck.cardsLeft(); i++) {
+            out.writeByte(deck.peek(i));
+        }
+
+        out.writeBoolean(snapshot.trioFoundInQueue);
+        out.writeInt(snapshot.selectionTimeout);
+        out.writeInt(snapshot.queueAdvanceTimeout);
+        out.writeInt(snapshot.inactivityTimeout);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    public static EngineSnapshot decode(byte[] bytes) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        int version = in.readUnsignedByte();
+        if (version < 1 || version > VERSION) {
+            throw new IOException("Unsupported game snapshot version: " + version);
+        }
+        Game game = new Game(in.readUTF(), in.readUTF(), Instant.ofEpochMilli(in.readLong()));
+        game.setState(Game.State.values()[in.readUnsignedByte()]);
+        game.setSeq(in.readLong());
+
+        for (int i = in.readUnsignedShort(); i > 0; i--) {
+            game.add(new Player(in.readUTF(), in.readUTF()));
+        }
+        for (int i = in.readUnsignedShort(); i > 0; i--) {
+            game.setScore(in.readUTF(), in.readInt());
+        }
+        for (int i = in.readUnsignedShort(); i > 0; i--) {
+            game.enqueue(in.readUTF());
+        }
+
+        game.setCardsLeft(in.readUnsignedByte());
+        for (int i = 0; i < Game.FULL_BOARD_SIZE; i++) {
+            int value = in.readUnsignedByte();
+            if (value != NO_CARD) {
+                game.setCard(i, value);
+            }
+        }
+        OptionalLong seed = OptionalLong.empty();
+        if (version > 1) {
+            boolean seeded = in.readBoolean();
+            long value = in.readLong();
+            seed = seeded ? OptionalLong.of(value) : seed;
+        }
+        byte[] cards = new byte[in.readUnsignedByte()];
+        in.readFully(cards);
+        Deck deck = new Deck(cards, 0, seed);
+
+        return new EngineSnapshot(game, deck, in.readBoolean(), in.readInt(), in.readInt(), in.readInt());
+    }
+}
@@ -0,0 +1,128 @@
+package com.orange.oswe.demo.trio.game;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Single-writer mailbox: tasks posted from any thread are run one at a time, in posting order, on a (shared) executor.
+ * <p>
+ * Everything that touches a game state goes through its mailbox, so the engine needs no lock, and many games can be
+ * served by a small pool of threads.
+ * <p>
+ * If the executor rejects the mailbox (e.g. once shut down), its pending tasks are dropped, and the results of the ones
+ * posted with {@link #execute(Runnable, CompletableFuture)} are completed exceptionally.
+ */
+public class Mailbox implements Executor {
+    private static final Logger LOGGER = LoggerFactory.getLogger(Mailbox.class);
+
+    /**
+     * Max number of tasks run in a row before handing the executor thread over to other mailboxes
+     */
+    private static final int BATCH_SIZE = 64;
+
+    private final Executor executor;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    public Mailbox(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Posts a task to this mailbox
+     */
+    @Override
+    public void execute(Runnable task) {
+        tasks.add(task);
+        schedule();
+    }
+
+    /**
+     * Posts a task that completes the given result: the result is completed exceptionally if the task can't be run
+     */
+    public void execute(Runnable task, CompletableFuture<?> result) {
+        execute(new Pending(task, result));
+    }
+
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                scheduled.set(false);
+                reject(e);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Drops the pending tasks, as they won't be run
+     */
+    private void reject(RejectedExecutionException e) {
+        int dropped = 0;
+        for (Runnable task = tasks.poll(); task != null; task = tasks.poll()) {
+            if (task instanceof Pending) {
+                ((Pending) task).result.completeExceptionally(e);
+            }
+            dropped++;
+        }
+        LOGGER.error("Mailbox rejected by its executor: {} pending task(s) dropped", dropped, e);
+    }
+
+    private void drain() {
+        try {
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                Runnable task = tasks.poll();
+                if (task == null) {
+                    break;
+                }
+                try {
+                    task.run();
+                } catch (Throwable t) {
+                    LOGGER.error("Error occurred while running mailbox task {}", task, t);
+                }
+            }
+        } finally {
+            scheduled.set(false);
+            // --- tasks posted after the last poll, or batch size reached
+            if (!tasks.isEmpty()) {
+                try {
+                    schedule();
+                } catch (RejectedExecutionException e) {
+                    // --- already handled (see reject): nobody to report to on the executor thread
+                }
+            }
+        }
+    }
+
+    /**
+     * Task with a result to fail if it's never run
+     */
+    private static class Pending implements Runnable {
+        private final Runnable task;
+        private final CompletableFuture<?> result;
+
+        Pending(Runnable task, CompletableFuture<?> result) {
+            this.task = task;
+            this.result = result;
+        }
+
+        @Override
+        public void run() {
+            task.run();
+        }
+
+        @Override
+        public String toString() {
+            return task.toString();
+        }
+    }
+}
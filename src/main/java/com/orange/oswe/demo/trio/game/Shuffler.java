@@ -1,30 +1,33 @@
 package com.orange.oswe.demo.trio.game;
 
-import com.orange.oswe.demo.trio.game.model.Card;
-
-import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongSupplier;
 
+/**
+ * Deals shuffled {@link Deck decks}
+ * <p>
+ * Each deck is shuffled from a seed drawn from a pluggable source (thread-local random by default): a fixed source
+ * makes games reproducible, and the seed of a deck is enough to deal it again (see {@link #shuffle(long)}).
+ */
 public class Shuffler {
-    public Queue<Card> shuffle() {
-        // --- build unshuffled deck
-        List<Card> unshuffled = new ArrayList<>();
-        for (int i = 0; i < 3; i++) {
-            for (int j = 0; j < 3; j++) {
-                for (int k = 0; k < 3; k++) {
-                    for (int l = 0; l < 3; l++) {
-                        unshuffled.add(new Card(i, j, k, l));
-                    }
-                }
-            }
-        }
+    private final LongSupplier seeds;
+
+    public Shuffler() {
+        this(() -> ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * @param seeds source of seeds; shall be thread-safe if the shuffler is shared
+     */
+    public Shuffler(LongSupplier seeds) {
+        this.seeds = seeds;
+    }
+
+    public Deck shuffle() {
+        return shuffle(seeds.getAsLong());
+    }
 
-        // --- shuffle
-        Queue<Card> deck = new ArrayDeque<>();
-        Random random = new Random();
-        while(!unshuffled.isEmpty()) {
-            int idx = random.nextInt(unshuffled.size());
-            deck.add(unshuffled.remove(idx));
-        }
-        return deck;
+    public Deck shuffle(long seed) {
+        return Deck.shuffled(seed);
     }
 }
@@ -0,0 +1,284 @@
+package com.orange.oswe.demo.trio.game;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * Timeout scheduler shared by all game engines, based on a hashed timing wheel.
+ * <p>
+ * A single worker thread ticks every {@code tickDuration} and expires the timeouts of the current wheel bucket.
+ * Scheduling and cancelling a timeout are O(1) whatever the number of pending timeouts (each game re-arms its
+ * inactivity timeout on every action).
+ * <p>
+ * Timeout tasks are run by the worker thread: they shall be short, or hand work over to another executor.
+ */
+public class TimeoutScheduler {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TimeoutScheduler.class);
+
+    public static final long DEFAULT_TICK_DURATION = 20;
+    public static final int DEFAULT_WHEEL_SIZE = 1024;
+
+    // max pending timeouts transferred to the wheel per tick
+    private static final int MAX_TRANSFERS_PER_TICK = 100000;
+
+    private final long tickDuration;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final long startTime = System.nanoTime();
+    private final Queue<Timeout> pendingTimeouts = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancelledTimeouts = new ConcurrentLinkedQueue<>();
+    private final Thread worker;
+    private volatile boolean running = true;
+    // only accessed by the worker thread
+    private long tick;
+
+    public TimeoutScheduler() {
+        this(DEFAULT_TICK_DURATION, TimeUnit.MILLISECONDS, DEFAULT_WHEEL_SIZE);
+    }
+
+    /**
+     * @param tickDuration wheel tick duration (timeouts precision)
+     * @param unit         tick duration unit
+     * @param wheelSize    number of buckets in the wheel (rounded up to a power of 2)
+     */
+    public TimeoutScheduler(long tickDuration, TimeUnit unit, int wheelSize) {
+        if (tickDuration <= 0) {
+            throw new IllegalArgumentException("tickDuration must be > 0 (" + tickDuration + ")");
+        }
+        if (wheelSize <= 0 || wheelSize > (1 << 30)) {
+            throw new IllegalArgumentException("wheelSize must be in ]0-2^30] (" + wheelSize + ")");
+        }
+        this.tickDuration = unit.toNanos(tickDuration);
+        int size = Integer.highestOneBit(wheelSize);
+        if (size < wheelSize) {
+            size <<= 1;
+        }
+        wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new Bucket();
+        }
+        mask = size - 1;
+        worker = new Thread(this::run, "trio-timeouts");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Schedules the given task for execution after the given delay
+     *
+     * @param task    task to run
+     * @param delayMs delay (in milliseconds)
+     * @return the timeout handle, to cancel it
+     */
+    public Timeout schedule(Runnable task, long delayMs) {
+        if (!running) {
+            throw new IllegalStateException("Scheduler has been shut down");
+        }
+        Timeout timeout = new Timeout(this, task, System.nanoTime() - startTime + TimeUnit.MILLISECONDS.toNanos(delayMs));
+        pendingTimeouts.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Stops the worker thread; pending timeouts are dropped
+     */
+    public void shutdown() {
+        running = false;
+        worker.interrupt();
+    }
+
+    // ==================================================================
+    // === worker
+    // ==================================================================
+    private void run() {
+        while (running) {
+            long deadline = waitForNextTick();
+            if (deadline < 0) {
+                continue;
+            }
+            processCancelledTimeouts();
+            transferPendingTimeouts();
+            wheel[(int) (tick & mask)].expireTimeouts(deadline);
+            tick++;
+        }
+        LOGGER.info("Timeout scheduler stopped");
+    }
+
+    /**
+     * Sleeps until the next tick
+     *
+     * @return current time (relative to start), or -1 if interrupted
+     */
+    private long waitForNextTick() {
+        long deadline = tickDuration * (tick + 1);
+        while (true) {
+            long currentTime = System.nanoTime() - startTime;
+            long sleepMs = (deadline - currentTime + 999999) / 1000000;
+            if (sleepMs <= 0) {
+                return currentTime;
+            }
+            try {
+                Thread.sleep(sleepMs);
+            } catch (InterruptedException e) {
+                return -1;
+            }
+        }
+    }
+
+    private void processCancelledTimeouts() {
+        Timeout timeout;
+        while ((timeout = cancelledTimeouts.poll()) != null) {
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+    }
+
+    private void transferPendingTimeouts() {
+        for (int i = 0; i < MAX_TRANSFERS_PER_TICK; i++) {
+            Timeout timeout = pendingTimeouts.poll();
+            if (timeout == null) {
+                return;
+            }
+            if (timeout.state != Timeout.ST_INIT) {
+                // cancelled before reaching the wheel
+                continue;
+            }
+            long ticks = timeout.deadline / tickDuration;
+            timeout.remainingRounds = (ticks - tick) / wheel.length;
+            // --- if already late, expire on current tick
+            wheel[(int) (Math.max(ticks, tick) & mask)].add(timeout);
+        }
+    }
+
+    /**
+     * A scheduled timeout
+     */
+    public static final class Timeout {
+        private static final int ST_INIT = 0;
+        private static final int ST_CANCELLED = 1;
+        private static final int ST_EXPIRED = 2;
+        private static final AtomicIntegerFieldUpdater<Timeout> STATE = AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+
+        private final TimeoutScheduler scheduler;
+        private final Runnable task;
+        private final long deadline;
+        private volatile int state = ST_INIT;
+        // wheel state: only accessed by the worker thread
+        private long remainingRounds;
+        private Bucket bucket;
+        private Timeout next;
+        private Timeout prev;
+
+        private Timeout(TimeoutScheduler scheduler, Runnable task, long deadline) {
+            this.scheduler = scheduler;
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Cancels this timeout
+         *
+         * @return {@code false} if it has already expired or been cancelled
+         */
+        public boolean cancel() {
+            if (!STATE.compareAndSet(this, ST_INIT, ST_CANCELLED)) {
+                return false;
+            }
+            // --- actual removal from the wheel is done by the worker
+            scheduler.cancelledTimeouts.add(this);
+            return true;
+        }
+
+        public boolean isCancelled() {
+            return state == ST_CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return state == ST_EXPIRED;
+        }
+
+        /**
+         * Remaining delay before expiration (in milliseconds), or 0 if already due
+         */
+        public long getRemainingMillis() {
+            long remaining = deadline - (System.nanoTime() - scheduler.startTime);
+            return Math.max(0, TimeUnit.NANOSECONDS.toMillis(remaining));
+        }
+
+        private void expire() {
+            if (!STATE.compareAndSet(this, ST_INIT, ST_EXPIRED)) {
+                return;
+            }
+            try {
+                task.run();
+            } catch (Throwable t) {
+                LOGGER.error("Error occurred while running timeout task {}", task, t);
+            }
+        }
+    }
+
+    /**
+     * Wheel bucket: doubly-linked list of timeouts
+     */
+    private static final class Bucket {
+        private Timeout head;
+        private Timeout tail;
+
+        private void add(Timeout timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        private void expireTimeouts(long deadline) {
+            Timeout timeout = head;
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                if (timeout.remainingRounds <= 0) {
+                    remove(timeout);
+                    if (timeout.deadline <= deadline) {
+                        timeout.expire();
+                    } else {
+                        // should not happen: timeouts are placed in the bucket of their deadline
+                        LOGGER.error("Timeout deadline ({}) later than tick deadline ({})", timeout.deadline, deadline);
+                    }
+                } else if (timeout.isCancelled()) {
+                    remove(timeout);
+                } else {
+                    timeout.remainingRounds--;
+                }
+                timeout = next;
+            }
+        }
+
+        private void remove(Timeout timeout) {
+            if (timeout.bucket != this) {
+                return;
+            }
+            if (timeout.prev != null) {
+                timeout.prev.next = timeout.next;
+            } else {
+                head = timeout.next;
+            }
+            if (timeout.next != null) {
+                timeout.next.prev = timeout.prev;
+            } else {
+                tail = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+    }
+}
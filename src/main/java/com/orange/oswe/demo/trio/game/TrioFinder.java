@@ -0,0 +1,130 @@
+package com.orange.oswe.demo.trio.game;
+
+import com.orange.oswe.demo.trio.game.model.Card;
+import com.orange.oswe.demo.trio.game.model.Game;
+import com.orange.oswe.demo.trio.game.model.TrioTable;
+
+/**
+ * Allocation-free trio detection on a game board.
+ * <p>
+ * Works on packed {@link Card#getValue() card values}: for any pair of cards there is exactly one card that completes
+ * the trio. It is read from the {@link TrioTable}, then looked up in a presence bitmap of the cards on board. Putting or
+ * removing a card thus costs O(n), instead of an O(n^3) scan of the board.
+ * <p>
+ * The board is either {@link #load(Game) loaded} at once, or maintained incrementally ({@link #put(int, int)},
+ * {@link #remove(int)}, {@link #move(int, int)}); the number of trios on board is kept up to date either way, so
+ * {@link #hasTrio()} is O(1).
+ * <p>
+ * Not thread-safe: each {@link Engine} owns its own instance.
+ */
+public class TrioFinder {
+    private static final int NO_CARD = -1;
+
+    // presence bitmap of card values (values are 8 bits)
+    private final long[] present = new long[4];
+    // board position of each card value (only relevant if present)
+    private final byte[] positions = new byte[256];
+    // card values by board position (NO_CARD if empty)
+    private final int[] values = new int[Game.FULL_BOARD_SIZE];
+    // number of trios on board
+    private int trioCount;
+
+    public TrioFinder() {
+        for (int i = 0; i < values.length; i++) {
+            values[i] = NO_CARD;
+        }
+    }
+
+    /**
+     * Loads the board of the given game (straight from its card values)
+     */
+    public void load(Game game) {
+        clear();
+        for (int i = 0; i < Game.FULL_BOARD_SIZE; i++) {
+            int value = game.cardAt(i);
+            if (value != Game.NO_CARD) {
+                put(i, value);
+            }
+        }
+    }
+
+    /**
+     * Empties the board
+     */
+    public void clear() {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != NO_CARD) {
+                present[values[i] >>> 6] &= ~(1L << values[i]);
+                values[i] = NO_CARD;
+            }
+        }
+        trioCount = 0;
+    }
+
+    /**
+     * Places a card on an empty board position
+     */
+    public void put(int position, int value) {
+        trioCount += triosWith(value);
+        values[position] = value;
+        present[value >>> 6] |= 1L << value;
+        positions[value] = (byte) position;
+    }
+
+    /**
+     * Removes the card at the given board position (if any)
+     */
+    public void remove(int position) {
+        int value = values[position];
+        if (value == NO_CARD) {
+            return;
+        }
+        values[position] = NO_CARD;
+        present[value >>> 6] &= ~(1L << value);
+        trioCount -= triosWith(value);
+    }
+
+    /**
+     * Moves a card to an empty board position (trios are unchanged)
+     */
+    public void move(int from, int to) {
+        int value = values[from];
+        values[from] = NO_CARD;
+        values[to] = value;
+        positions[value] = (byte) to;
+    }
+
+    /**
+     * Returns the number of trios on the board, maintained as cards are put and removed
+     */
+    public int count() {
+        return trioCount;
+    }
+
+    public boolean hasTrio() {
+        return trioCount > 0;
+    }
+
+    /**
+     * Counts the trios the given card (not on board) would make with the cards on board: O(n)
+     */
+    private int triosWith(int value) {
+        int count = 0;
+        for (int j = 0; j < values.length; j++) {
+            if (values[j] == NO_CARD)
+                continue;
+            // --- k > j: each pair is counted once
+            if (positionOf(TrioTable.third(value, values[j])) > j) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the board position of the given card value, or {@code -1} if not on board
+     */
+    private int positionOf(int value) {
+        return (present[value >>> 6] & (1L << value)) == 0 ? -1 : positions[value];
+    }
+}
@@ -0,0 +1,342 @@
+package com.orange.oswe.demo.trio.game.events;
+
+import com.orange.oswe.demo.trio.game.actions.Action;
+import com.orange.oswe.demo.trio.game.model.Card;
+import com.orange.oswe.demo.trio.game.model.Game;
+import com.orange.oswe.demo.trio.game.model.Player;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Compact binary encoding of {@link Event events} and {@link Action actions}
+ * <p>
+ * Layout: all integers are unsigned varints (7 bits per byte, low bits first), signed ones are zigzag-encoded first;
+ * strings are a varint length followed by the UTF-8 bytes; enums are their ordinal; cards, positions and faulty
+ * attributes are single bytes (card value, board position, attributes mask).
+ * <pre>
+ * event   := type seq body
+ * body    := game_state_changed: state
+ *          | player_joined, player_left: player
+ *          | player_selects, player_declares, select_timeout, select_giveup, select_nolonger: player score queue
+ *          | select_failure: player faulty score queue
+ *          | select_success: player count position* score queue
+ *          | cards_drawn: reason nbCardsBeforeDraw count card* position*
+ *          | cards_moved: count from* to*
+ * player  := id name
+ * score   := 0 (no score change) | zigzag(newScore) + 1
+ * queue   := polled count pushed_id*
+ * action  := type count selection*
+ * </pre>
+ * Must be kept in sync with {@code codec.js}.
+ */
+public final class BinaryEventCodec {
+
+    private BinaryEventCodec() {
+    }
+
+    // =====================================================
+    // === Events
+    // =====================================================
+    public static byte[] encode(Event event) {
+        Writer out = new Writer();
+        out.varint(event.getType().ordinal());
+        out.varint(event.getSeq());
+        switch (event.getType()) {
+            case game_state_changed:
+                out.varint(((Event.GameStateChanged) event).getState().ordinal());
+                break;
+            case player_joined:
+            case player_left:
+                out.player(((Event.PlayerEvent) event).getPlayer());
+                break;
+            case player_selects:
+            case player_declares:
+            case select_timeout:
+            case select_giveup:
+            case select_nolonger: {
+                Event.GameEvent e = (Event.GameEvent) event;
+                out.player(e.getPlayer());
+                out.score(e.getNewScore());
+                out.queue(e.getQueueDelta());
+                break;
+            }
+            case select_failure: {
+                Event.TrioFailureEvent e = (Event.TrioFailureEvent) event;
+                out.player(e.getPlayer());
+                int mask = 0;
+                for (Card.Attribute attribute : e.getFaulty()) {
+                    mask |= 1 << attribute.ordinal();
+                }
+                out.varint(mask);
+                out.score(e.getNewScore());
+                out.queue(e.getQueueDelta());
+                break;
+            }
+            case select_success: {
+                Event.TrioFoundEvent e = (Event.TrioFoundEvent) event;
+                out.player(e.getPlayer());
+                out.bytes(e.getPositions());
+                out.score(e.getNewScore());
+                out.queue(e.getQueueDelta());
+                break;
+            }
+            case cards_drawn: {
+                Event.CardsDrawnEvent e = (Event.CardsDrawnEvent) event;
+                out.varint(e.getReason().ordinal());
+                out.varint(e.getNbCardsBeforeDraw());
+                out.varint(e.getCards().length);
+                for (Card card : e.getCards()) {
+                    out.write(card.getValue());
+                }
+                for (int position : e.getPositions()) {
+                    out.write(position);
+                }
+                break;
+            }
+            case cards_moved: {
+                Event.CardsMovedEvent e = (Event.CardsMovedEvent) event;
+                out.varint(e.getFrom().length);
+                for (int position : e.getFrom()) {
+                    out.write(position);
+                }
+                for (int position : e.getTo()) {
+                    out.write(position);
+                }
+                break;
+            }
+        }
+        return out.toByteArray();
+    }
+
+    public static Event decode(byte[] bytes) {
+        Reader in = new Reader(bytes);
+        Event.Type type = in.constant(Event.Type.values());
+        long seq = in.varlong();
+        Event event;
+        switch (type) {
+            case game_state_changed:
+                event = Event.gameStateChanged(in.constant(Game.State.values()));
+                break;
+            case player_joined:
+            case player_left:
+                event = new Event.PlayerEvent(type, in.player());
+                break;
+            case player_selects:
+            case player_declares:
+            case select_timeout:
+            case select_giveup:
+            case select_nolonger:
+                event = new Event.GameEvent(type, in.player(), in.score(), in.queue());
+                break;
+            case select_failure:
+                event = new Event.TrioFailureEvent(in.player(), Card.Attribute.fromMask(in.varint()), in.score(), in.queue());
+                break;
+            case select_success:
+                event = new Event.TrioFoundEvent(in.player(), in.bytes(), in.score(), in.queue());
+                break;
+            case cards_drawn: {
+                Event.DrawReason reason = in.constant(Event.DrawReason.values());
+                int nbCardsBeforeDraw = in.varint();
+                int count = in.varint();
+                Card[] cards = new Card[count];
+                for (int i = 0; i < count; i++) {
+                    cards[i] = Card.of(in.read());
+                }
+                int[] positions = new int[count];
+                for (int i = 0; i < count; i++) {
+                    positions[i] = in.read();
+                }
+                event = Event.cardsDrawn(reason, nbCardsBeforeDraw, cards, positions);
+                break;
+            }
+            case cards_moved: {
+                int count = in.varint();
+                int[] from = new int[count];
+                for (int i = 0; i < count; i++) {
+                    from[i] = in.read();
+                }
+                int[] to = new int[count];
+                for (int i = 0; i < count; i++) {
+                    to[i] = in.read();
+                }
+                event = Event.cardsMoved(from, to);
+                break;
+            }
+            default:
+                throw new IllegalArgumentException("Unsupported event type: " + type);
+        }
+        event.setSeq(seq);
+        return event;
+    }
+
+    // =====================================================
+    // === Actions
+    // =====================================================
+    public static byte[] encode(Action action) {
+        Writer out = new Writer();
+        out.varint(action.getType().ordinal());
+        out.bytes(action.getSelection() == null ? new int[0] : action.getSelection());
+        return out.toByteArray();
+    }
+
+    public static Action decodeAction(byte[] bytes) {
+        Reader in = new Reader(bytes);
+        Action.Type type = in.constant(Action.Type.values());
+        int[] selection = in.bytes();
+        return new Action(type, selection.length == 0 ? null : selection);
+    }
+
+    // =====================================================
+    // === Low level
+    // =====================================================
+    private static final class Writer {
+        private byte[] buf = new byte[64];
+        private int pos;
+
+        void write(int b) {
+            if (pos == buf.length) {
+                buf = Arrays.copyOf(buf, buf.length * 2);
+            }
+            buf[pos++] = (byte) b;
+        }
+
+        void varint(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+
+        void string(String value) {
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            varint(utf8.length);
+            for (byte b : utf8) {
+                write(b);
+            }
+        }
+
+        void bytes(int[] values) {
+            varint(values.length);
+            for (int value : values) {
+                write(value);
+            }
+        }
+
+        void player(Player player) {
+            string(player.getId());
+            string(player.getName());
+        }
+
+        void score(Integer score) {
+            varint(score == null ? 0 : (((score << 1) ^ (score >> 31)) & 0xFFFFFFFFL) + 1);
+        }
+
+        void queue(Event.QueueDelta delta) {
+            varint(delta.getPolled());
+            varint(delta.getPushed().size());
+            for (String playerId : delta.getPushed()) {
+                string(playerId);
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buf, pos);
+        }
+    }
+
+    private static final class Reader {
+        private final byte[] buf;
+        private int pos;
+
+        Reader(byte[] buf) {
+            this.buf = buf;
+        }
+
+        int read() {
+            if (pos >= buf.length) {
+                throw new IllegalArgumentException("Truncated message");
+            }
+            return buf[pos++] & 0xFF;
+        }
+
+        long varlong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = read();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint");
+        }
+
+        int varint() {
+            return (int) varlong();
+        }
+
+        /**
+         * Reads an enum constant from its ordinal
+         */
+        <E extends Enum<E>> E constant(E[] values) {
+            long ordinal = varlong();
+            if (ordinal < 0 || ordinal >= values.length) {
+                throw new IllegalArgumentException("Unknown " + values.getClass().getComponentType().getSimpleName() + ": " + ordinal);
+            }
+            return values[(int) ordinal];
+        }
+
+        String string() {
+            int length = varint();
+            if (length < 0 || length > buf.length - pos) {
+                throw new IllegalArgumentException("Truncated message");
+            }
+            String value = new String(buf, pos, length, StandardCharsets.UTF_8);
+            pos += length;
+            return value;
+        }
+
+        int[] bytes() {
+            int length = varint();
+            if (length < 0 || length > buf.length - pos) {
+                throw new IllegalArgumentException("Truncated message");
+            }
+            int[] values = new int[length];
+            for (int i = 0; i < length; i++) {
+                values[i] = read();
+            }
+            return values;
+        }
+
+        Player player() {
+            return new Player(string(), string());
+        }
+
+        Integer score() {
+            long value = varlong();
+            if (value == 0) {
+                return null;
+            }
+            int zigzag = (int) (value - 1);
+            return (zigzag >>> 1) ^ -(zigzag & 1);
+        }
+
+        Event.QueueDelta queue() {
+            int polled = varint();
+            int count = varint();
+            if (count == 0) {
+                return new Event.QueueDelta(polled, Collections.emptyList());
+            }
+            List<String> pushed = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                pushed.add(string());
+            }
+            return new Event.QueueDelta(polled, pushed);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.orange.oswe.demo.trio.game.events;
+
+import com.orange.oswe.demo.trio.game.actions.Action;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.AbstractMessageConverter;
+import org.springframework.messaging.converter.MessageConversionException;
+import org.springframework.util.MimeType;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * STOMP message converter for the {@link BinaryEventCodec binary} wire format
+ * <p>
+ * SockJS transports only carry text frames, so the binary payload is base64-encoded. Only applies to messages with
+ * the {@link #MIME_TYPE} content type: JSON remains the default format.
+ */
+public class BinaryEventMessageConverter extends AbstractMessageConverter {
+
+    public static final MimeType MIME_TYPE = new MimeType("application", "x-trio+base64");
+
+    public BinaryEventMessageConverter() {
+        super(MIME_TYPE);
+        setStrictContentTypeMatch(true);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return Event.class.isAssignableFrom(clazz) || Action.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected Object convertFromInternal(Message<?> message, Class<?> targetClass, Object conversionHint) {
+        Object payload = message.getPayload();
+        byte[] base64 = payload instanceof byte[] ? (byte[]) payload : payload.toString().getBytes(StandardCharsets.US_ASCII);
+        try {
+            byte[] bytes = Base64.getDecoder().decode(base64);
+            return Action.class.isAssignableFrom(targetClass) ? BinaryEventCodec.decodeAction(bytes) : BinaryEventCodec.decode(bytes);
+        } catch (IllegalArgumentException e) {
+            // --- malformed client frame
+            throw new MessageConversionException(message, "Malformed binary " + targetClass.getSimpleName() + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    protected Object convertToInternal(Object payload, MessageHeaders headers, Object conversionHint) {
+        byte[] bytes = payload instanceof Action ? BinaryEventCodec.encode((Action) payload) : BinaryEventCodec.encode((Event) payload);
+        return Base64.getEncoder().encode(bytes);
+    }
+}
@@ -5,14 +5,22 @@ import com.orange.oswe.demo.trio.game.model.Game;
 import com.orange.oswe.demo.trio.game.model.Player;
 import lombok.Value;
 
+import java.util.Collections;
 import java.util.List;
-import java.util.Queue;
 
 /**
  * Created by crhx7117 on 20/06/17.
  */
 public abstract class Event {
 
+    /**
+     * Sequence number, assigned by the engine when the event is broadcast
+     * <p>
+     * Increases by one with each event of a game: a client that detects a gap shall resync from a game snapshot
+     * (see {@link Game#getSeq()}).
+     */
+    private long seq;
+
     public enum Type {
         game_state_changed, player_joined, player_left, player_selects, player_declares, select_timeout, select_giveup, select_nolonger, select_success, select_failure, cards_moved, cards_drawn
     }
@@ -34,6 +42,30 @@ public abstract class Event {
 
     public abstract Type getType();
 
+    public long getSeq() {
+        return seq;
+    }
+
+    public void setSeq(long seq) {
+        this.seq = seq;
+    }
+
+    /**
+     * Selection queue changes since the previous event carrying a queue delta: {@code polled} players removed from
+     * the head, then {@code pushed} players added to the tail
+     */
+    @Value
+    public static class QueueDelta {
+        private static final QueueDelta NONE = new QueueDelta(0, Collections.emptyList());
+
+        private final int polled;
+        private final List<String> pushed;
+
+        public static QueueDelta none() {
+            return NONE;
+        }
+    }
+
     @Value
     public static class GameStateChanged extends Event {
         private final Game.State state;
@@ -55,7 +87,7 @@ public abstract class Event {
         private final Type type;
         private final Player player;
         private final Integer newScore;
-        private final Queue<String> queue;
+        private final QueueDelta queueDelta;
     }
 
     @Value
@@ -63,7 +95,7 @@ public abstract class Event {
         private final Player player;
         private final List<Card.Attribute> faulty;
         private final Integer newScore;
-        private final Queue<String> queue;
+        private final QueueDelta queueDelta;
 
         @Override
         public Type getType() {
@@ -76,7 +108,7 @@ public abstract class Event {
         private final Player player;
         private final int[] positions;
         private final Integer newScore;
-        private final Queue<String> queue;
+        private final QueueDelta queueDelta;
 
         @Override
         public Type getType() {
@@ -120,32 +152,32 @@ public abstract class Event {
         return new PlayerEvent(Type.player_left, player);
     }
 
-    public static Event playerSelectsTrio(Player player, Queue<String> queue) {
-        return new GameEvent(Type.player_selects, player, null, queue);
+    public static Event playerSelectsTrio(Player player, QueueDelta queueDelta) {
+        return new GameEvent(Type.player_selects, player, null, queueDelta);
     }
 
-    public static Event playerDeclaresTrio(Player player, Queue<String> queue) {
-        return new GameEvent(Type.player_declares, player, null, queue);
+    public static Event playerDeclaresTrio(Player player, QueueDelta queueDelta) {
+        return new GameEvent(Type.player_declares, player, null, queueDelta);
     }
 
-    public static Event trioSelectionTimeouted(Player player, Integer newScore, Queue<String> queue) {
-        return new GameEvent(Type.select_timeout, player, newScore, queue);
+    public static Event trioSelectionTimeouted(Player player, Integer newScore, QueueDelta queueDelta) {
+        return new GameEvent(Type.select_timeout, player, newScore, queueDelta);
     }
 
-    public static Event trioSelectionGiveUp(Player player, Integer newScore, Queue<String> queue) {
-        return new GameEvent(Type.select_giveup, player, newScore, queue);
+    public static Event trioSelectionGiveUp(Player player, Integer newScore, QueueDelta queueDelta) {
+        return new GameEvent(Type.select_giveup, player, newScore, queueDelta);
     }
 
-    public static Event trioSelectionWithdraw(Player player, Queue<String> queue) {
-        return new GameEvent(Type.select_nolonger, player, null, queue);
+    public static Event trioSelectionWithdraw(Player player, QueueDelta queueDelta) {
+        return new GameEvent(Type.select_nolonger, player, null, queueDelta);
     }
 
-    public static Event trioSelectionFailure(Player player, List<Card.Attribute> faulty, Integer newScore, Queue<String> queue) {
-        return new TrioFailureEvent(player, faulty, newScore, queue);
+    public static Event trioSelectionFailure(Player player, List<Card.Attribute> faulty, Integer newScore, QueueDelta queueDelta) {
+        return new TrioFailureEvent(player, faulty, newScore, queueDelta);
     }
 
-    public static Event trioSelectionSuccess(Player player, int[] positions, Integer newScore, Queue<String> queue) {
-        return new TrioFoundEvent(player, positions, newScore, queue);
+    public static Event trioSelectionSuccess(Player player, int[] positions, Integer newScore, QueueDelta queueDelta) {
+        return new TrioFoundEvent(player, positions, newScore, queueDelta);
     }
 
     public static Event cardsMoved(int[] fromPositions, int[] toPositions) {
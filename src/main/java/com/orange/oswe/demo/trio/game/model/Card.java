@@ -1,5 +1,7 @@
 package com.orange.oswe.demo.trio.game.model;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.base.Preconditions;
 import lombok.Value;
 
@@ -13,19 +15,69 @@ import java.util.List;
 public class Card {
 
     public enum Attribute {
-        color, shape, fill, number
+        color, shape, fill, number;
+
+        private static final Attribute[] VALUES = values();
+
+        /**
+         * Converts a faulty attributes mask (see {@link Card#faultyAttributes(int, int, int)}) into a list
+         */
+        public static List<Attribute> fromMask(int mask) {
+            List<Attribute> attributes = new ArrayList<>(Integer.bitCount(mask));
+            for (Attribute attribute : VALUES) {
+                if ((mask & (1 << attribute.ordinal())) != 0) {
+                    attributes.add(attribute);
+                }
+            }
+            return attributes;
+        }
+    }
+
+    /**
+     * Bitmap of valid attribute sums: 3 attribute values are all equal or all different iff their sum is 0, 3 or 6
+     */
+    private static final int VALID_SUMS = (1 << 0) | (1 << 3) | (1 << 6);
+
+    /**
+     * Canonical instances, indexed by value ({@code null} for values that are not a card): only 81 cards exist
+     */
+    private static final Card[] CARDS = new Card[256];
+
+    static {
+        for (int number = 0; number < 3; number++) {
+            for (int fill = 0; fill < 3; fill++) {
+                for (int shape = 0; shape < 3; shape++) {
+                    for (int color = 0; color < 3; color++) {
+                        int value = (number << 6) + (fill << 4) + (shape << 2) + color;
+                        CARDS[value] = new Card(value);
+                    }
+                }
+            }
+        }
     }
 
-    public Card(int value) {
+    private Card(int value) {
         this.value = value;
     }
 
-    public Card(int color, int shape, int fill, int number) {
+    /**
+     * Returns the canonical card of the given value (cards can thus be compared by identity)
+     */
+    @JsonCreator
+    public static Card of(@JsonProperty("value") int value) {
+        Card card = value >= 0 && value < CARDS.length ? CARDS[value] : null;
+        if (card == null) {
+            throw new IllegalArgumentException("Invalid card value (" + value + ")");
+        }
+        return card;
+    }
+
+    public static Card of(int color, int shape, int fill, int number) {
         check(Attribute.color, color);
         check(Attribute.shape, shape);
         check(Attribute.fill, fill);
         check(Attribute.number, number);
-        value = (number << 6) + (fill << 4) + (shape << 2) + color;
+        return CARDS[(number << 6) + (fill << 4) + (shape << 2) + color];
     }
 
     private int value;
@@ -43,24 +95,22 @@ public class Card {
      * @return an empty list if they are a trio; list of faulty attributes if not
      */
     public static List<Attribute> isTrio(Card card1, Card card2, Card card3) {
-        List<Attribute> faulty = new ArrayList<>();
-        for (Card.Attribute attribute : Card.Attribute.values()) {
-            if (card1.getAttribute(attribute) == card2.getAttribute(attribute)) {
-                // --- check they are all equal
-                if (card1.getAttribute(attribute) != card3.getAttribute(attribute)) {
-                    // --- not a trio
-                    faulty.add(attribute);
-                }
-            } else {
-                // --- check they are all different
-                if (card1.getAttribute(attribute) == card3.getAttribute(attribute)) {
-                    // --- not a trio
-                    faulty.add(attribute);
-                } else if (card2.getAttribute(attribute) == card3.getAttribute(attribute)) {
-                    // --- not a trio
-                    faulty.add(attribute);
-                }
-            }
+        return Attribute.fromMask(faultyAttributes(card1.value, card2.value, card3.value));
+    }
+
+    /**
+     * Determines the faulty attributes of the 3 given card values
+     * <p>
+     * Allocation-free: on each attribute, the 3 values are all equal or all different iff their sum is a multiple of 3
+     *
+     * @return 0 if they are a trio; a mask of faulty attributes if not (bit n set for the attribute of ordinal n)
+     */
+    public static int faultyAttributes(int value1, int value2, int value3) {
+        int faulty = 0;
+        for (int attr = 0; attr < 4; attr++) {
+            int shift = attr * 2;
+            int sum = ((value1 >> shift) & 0x03) + ((value2 >> shift) & 0x03) + ((value3 >> shift) & 0x03);
+            faulty |= ((~VALID_SUMS >> sum) & 1) << attr;
         }
         return faulty;
     }
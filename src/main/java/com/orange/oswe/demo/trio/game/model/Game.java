@@ -1,17 +1,25 @@
 package com.orange.oswe.demo.trio.game.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
-import lombok.Data;
 import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 
 import java.time.Instant;
 import java.util.*;
 
 /**
  * Created by crhx7117 on 20/06/17.
+ * <p>
+ * Compact, array-backed model: each player is given a small int slot when joining; scores are a primitive array
+ * indexed by slot, the selection queue is a ring buffer of slots and the board holds packed card values. Maps and
+ * lists are only built for the JSON representation.
+ * <p>
+ * A player leaving keeps its slot (its score and selection still count) until the game is {@link #reset()}.
  */
-@Data
 @EqualsAndHashCode(of="id")
+@ToString(of={"id", "ownerId", "state", "seq"})
 public class Game {
 
     /**
@@ -26,6 +34,13 @@ public class Game {
      *Max board size: number of cars displayed in case no trio was present in the normal board
      */
     public static final int FULL_BOARD_SIZE = 15;
+    /**
+     * Value returned by {@link #cardAt(int)} for an empty board position
+     */
+    public static final int NO_CARD = -1;
+
+    private static final byte EMPTY = (byte) 0xFF;
+    private static final int INITIAL_SLOTS = 4;
 
     public enum State {
         /**
@@ -47,25 +62,67 @@ public class Game {
         over;
     }
 
+    @Getter
     private final String id;
+    @Getter
     private final String ownerId;
-    private final Instant created = Instant.now();
+    @Getter
+    private final Instant created;
+    @Getter
+    @Setter
     private State state = State.preparing;
-    private Map<String, Player> players = new HashMap<>();
-    private Map<String, Integer> scores = new HashMap<>();
-    private Queue<String> queue = new ArrayDeque<>();
+    @Getter
+    @Setter
     private int cardsLeft = TOTAL_NUMBER_OF_CARDS;
-    private Card[] board = new Card[FULL_BOARD_SIZE];
+    /**
+     * Sequence number of the last broadcast event (this game state includes all events up to it)
+     */
+    @Getter
+    @Setter
+    private long seq;
+
+    // --- by slot: player id (null if free), player (null if left) and score
+    private String[] ids = new String[INITIAL_SLOTS];
+    private Player[] players = new Player[INITIAL_SLOTS];
+    private int[] scores = new int[INITIAL_SLOTS];
+    private int playerCount;
+
+    // --- selection queue: ring buffer of slots (a slot is queued at most once)
+    private int[] queue = new int[INITIAL_SLOTS];
+    private int queueHead;
+    private int queueSize;
+
+    // --- card values by board position (EMPTY if none)
+    private final byte[] board = new byte[FULL_BOARD_SIZE];
+
+    public Game(String id, String ownerId) {
+        this(id, ownerId, Instant.now());
+    }
+
+    public Game(String id, String ownerId, Instant created) {
+        this.id = id;
+        this.ownerId = ownerId;
+        this.created = created;
+        Arrays.fill(board, EMPTY);
+    }
 
     /**
      * Resets this game to prepare a new match
+     * <p>
+     * Clears in place: scores, queue and board are not reallocated; slots of players who left are freed
      */
     public void reset() {
         state = State.preparing;
-        scores = new HashMap<>();
-        queue = new ArrayDeque<>();
+        for (int slot = 0; slot < ids.length; slot++) {
+            if (players[slot] == null) {
+                ids[slot] = null;
+            }
+        }
+        Arrays.fill(scores, 0);
+        queueHead = 0;
+        queueSize = 0;
         cardsLeft = TOTAL_NUMBER_OF_CARDS;
-        board = new Card[FULL_BOARD_SIZE];
+        Arrays.fill(board, EMPTY);
     }
 
     @JsonIgnore
@@ -73,35 +130,252 @@ public class Game {
         return cardsLeft > 0;
     }
 
+    public void decrCardsLeft(int delta) {
+        cardsLeft -= delta;
+    }
+
+    // =====================================================
+    // === players & scores
+    // =====================================================
     @JsonIgnore
     public Player getOwner() {
-        return players.get(ownerId);
+        return getPlayer(ownerId);
     }
 
-    public void add(Player player) {
-        players.put(player.getId(), player);
+    /**
+     * Adds a player, giving it a slot (its former one if it left during the current match)
+     *
+     * @return the player slot
+     */
+    public int add(Player player) {
+        int slot = slotOf(player.getId());
+        if (slot < 0) {
+            slot = freeSlot();
+            ids[slot] = player.getId();
+        }
+        if (players[slot] == null) {
+            playerCount++;
+        }
+        players[slot] = player;
+        return slot;
     }
 
     public void remove(Player player) {
-        players.remove(player.getId());
+        int slot = slotOf(player.getId());
+        if (slot >= 0 && players[slot] != null) {
+            players[slot] = null;
+            playerCount--;
+        }
     }
 
+    public boolean hasPlayer(String playerId) {
+        int slot = slotOf(playerId);
+        return slot >= 0 && players[slot] != null;
+    }
+
+    /**
+     * @return the player, or {@code null} if not part of the game
+     */
+    public Player getPlayer(String playerId) {
+        int slot = slotOf(playerId);
+        return slot < 0 ? null : players[slot];
+    }
+
+    public int playerCount() {
+        return playerCount;
+    }
+
+    /**
+     * Players, in slot order
+     */
+    public Map<String, Player> getPlayers() {
+        Map<String, Player> map = new LinkedHashMap<>(playerCount * 2);
+        for (Player player : players) {
+            if (player != null) {
+                map.put(player.getId(), player);
+            }
+        }
+        return Collections.unmodifiableMap(map);
+    }
+
+    /**
+     * Sets a player score
+     * <p>
+     * An unknown player is given a slot, as one who left (used when restoring a game)
+     */
     public int setScore(String playerId, int score) {
-        scores.put(playerId, score);
+        int slot = slotOf(playerId);
+        if (slot < 0) {
+            slot = freeSlot();
+            ids[slot] = playerId;
+        }
+        scores[slot] = score;
         return score;
     }
 
     public int getScore(String playerId) {
-        Integer score = (Integer) scores.get(playerId);
-        return score == null ? 0 : score;
+        int slot = slotOf(playerId);
+        return slot < 0 ? 0 : scores[slot];
     }
 
     public int incrScore(String playerId, int delta) {
-        return setScore(playerId, getScore(playerId) + delta);
+        return scores[slotFor(playerId)] += delta;
     }
 
-    public void decrCardsLeft(int delta) {
-        setCardsLeft(getCardsLeft() - delta);
+    /**
+     * Scores of all players in the current match (including the ones who left), in slot order
+     */
+    public Map<String, Integer> getScores() {
+        Map<String, Integer> map = new LinkedHashMap<>(ids.length * 2);
+        for (int slot = 0; slot < ids.length; slot++) {
+            if (ids[slot] != null) {
+                map.put(ids[slot], scores[slot]);
+            }
+        }
+        return Collections.unmodifiableMap(map);
     }
 
+    /**
+     * Linear scan: games have a handful of players
+     *
+     * @return the slot of the given player id, or -1
+     */
+    private int slotOf(String playerId) {
+        for (int slot = 0; slot < ids.length; slot++) {
+            if (playerId.equals(ids[slot])) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private int slotFor(String playerId) {
+        int slot = slotOf(playerId);
+        if (slot < 0) {
+            throw new IllegalArgumentException("Player " + playerId + " is not part of game " + id);
+        }
+        return slot;
+    }
+
+    private int freeSlot() {
+        for (int slot = 0; slot < ids.length; slot++) {
+            if (ids[slot] == null) {
+                return slot;
+            }
+        }
+        // --- all slots taken: grow (the queue ring buffer is unrolled meanwhile)
+        int slot = ids.length;
+        int[] newQueue = new int[slot * 2];
+        for (int i = 0; i < queueSize; i++) {
+            newQueue[i] = queue[(queueHead + i) % queue.length];
+        }
+        queue = newQueue;
+        queueHead = 0;
+        ids = Arrays.copyOf(ids, slot * 2);
+        players = Arrays.copyOf(players, slot * 2);
+        scores = Arrays.copyOf(scores, slot * 2);
+        return slot;
+    }
+
+    // =====================================================
+    // === selection queue
+    // =====================================================
+    public int queueSize() {
+        return queueSize;
+    }
+
+    public boolean isQueued(String playerId) {
+        int slot = slotOf(playerId);
+        for (int i = 0; slot >= 0 && i < queueSize; i++) {
+            if (queue[(queueHead + i) % queue.length] == slot) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the id of the player at the head of the selection queue, or {@code null} if empty
+     */
+    public String queueHead() {
+        return queueSize == 0 ? null : ids[queue[queueHead]];
+    }
+
+    public void enqueue(String playerId) {
+        queue[(queueHead + queueSize) % queue.length] = slotFor(playerId);
+        queueSize++;
+    }
+
+    /**
+     * Removes the head of the selection queue
+     *
+     * @throws NoSuchElementException if empty
+     */
+    public void dequeue() {
+        if (queueSize == 0) {
+            throw new NoSuchElementException("Selection queue is empty");
+        }
+        queueHead = (queueHead + 1) % queue.length;
+        queueSize--;
+    }
+
+    public void clearQueue() {
+        queueHead = 0;
+        queueSize = 0;
+    }
+
+    /**
+     * Selection queue player ids, head first
+     */
+    public List<String> getQueue() {
+        if (queueSize == 0) {
+            return Collections.emptyList();
+        }
+        String[] list = new String[queueSize];
+        for (int i = 0; i < queueSize; i++) {
+            list[i] = ids[queue[(queueHead + i) % queue.length]];
+        }
+        return Collections.unmodifiableList(Arrays.asList(list));
+    }
+
+    // =====================================================
+    // === board
+    // =====================================================
+    /**
+     * @return the {@link Card#getValue() value} of the card at the given position, or {@link #NO_CARD}
+     */
+    public int cardAt(int position) {
+        byte value = board[position];
+        return value == EMPTY ? NO_CARD : value & 0xFF;
+    }
+
+    public boolean hasCard(int position) {
+        return board[position] != EMPTY;
+    }
+
+    public void setCard(int position, int value) {
+        board[position] = (byte) value;
+    }
+
+    public void removeCard(int position) {
+        board[position] = EMPTY;
+    }
+
+    public void moveCard(int from, int to) {
+        board[to] = board[from];
+        board[from] = EMPTY;
+    }
+
+    /**
+     * Cards by board position ({@code null} if empty)
+     */
+    public Card[] getBoard() {
+        Card[] cards = new Card[FULL_BOARD_SIZE];
+        for (int i = 0; i < FULL_BOARD_SIZE; i++) {
+            if (board[i] != EMPTY) {
+                cards[i] = Card.of(board[i] & 0xFF);
+            }
+        }
+        return cards;
+    }
 }
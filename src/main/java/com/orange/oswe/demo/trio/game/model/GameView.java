@@ -0,0 +1,98 @@
+package com.orange.oswe.demo.trio.game.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Immutable view of a {@link Game}, as of a given version (the game {@link Game#getSeq() seq})
+ * <p>
+ * Published by the engine after each state change: it can be read from any thread without locking, while the game
+ * itself is only accessed from the engine mailbox. Serializes to the same JSON as the game; the JSON is computed
+ * once per version (see {@link #toJson(ObjectMapper)}).
+ */
+@Getter
+public class GameView {
+    private final String id;
+    private final String ownerId;
+    private final Instant created;
+    private final Game.State state;
+    private final Map<String, Player> players;
+    private final Map<String, Integer> scores;
+    private final List<String> queue;
+    private final int cardsLeft;
+    private final List<Card> board;
+    private final long seq;
+
+    @Getter(AccessLevel.NONE)
+    private volatile byte[] json;
+
+    private GameView(Game game, GameView previous) {
+        id = game.getId();
+        ownerId = game.getOwnerId();
+        created = game.getCreated();
+        state = game.getState();
+        // --- players rarely change: shared with the previous version when unchanged
+        players = previous != null && samePlayers(previous.players, game) ? previous.players : game.getPlayers();
+        // --- the game builds fresh unmodifiable copies of its primitive state
+        scores = game.getScores();
+        queue = game.getQueue();
+        cardsLeft = game.getCardsLeft();
+        board = Collections.unmodifiableList(Arrays.asList(game.getBoard()));
+        seq = game.getSeq();
+    }
+
+    private static boolean samePlayers(Map<String, Player> players, Game game) {
+        if (players.size() != game.playerCount()) {
+            return false;
+        }
+        for (Player player : players.values()) {
+            Player current = game.getPlayer(player.getId());
+            if (current == null || !Objects.equals(current.getName(), player.getName())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Takes a view of the game
+     * <p>
+     * Shall be called from the engine mailbox
+     *
+     * @param previous the previous view of the same game (its unchanged parts are shared), or {@code null}
+     */
+    public static GameView of(Game game, GameView previous) {
+        return new GameView(game, previous);
+    }
+
+    @JsonIgnore
+    public Player getOwner() {
+        return players.get(ownerId);
+    }
+
+    @JsonIgnore
+    public int getScore(String playerId) {
+        Integer score = scores.get(playerId);
+        return score == null ? 0 : score;
+    }
+
+    /**
+     * Returns the JSON representation of this view, serialized on first call only
+     * <p>
+     * The returned array is shared: it shall not be modified
+     */
+    public byte[] toJson(ObjectMapper objectMapper) throws JsonProcessingException {
+        byte[] bytes = json;
+        if (bytes == null) {
+            // --- benign race: concurrent first calls produce the same bytes
+            json = bytes = objectMapper.writeValueAsBytes(this);
+        }
+        return bytes;
+    }
+}
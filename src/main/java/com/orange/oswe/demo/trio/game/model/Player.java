@@ -14,7 +14,11 @@ public class Player {
     private final String name;
 
     public Player(User user) {
-        this.id = user.getUsername();
-        this.name = user.getFullname();
+        this(user.getUsername(), user.getFullname());
+    }
+
+    public Player(String id, String name) {
+        this.id = id;
+        this.name = name;
     }
 }
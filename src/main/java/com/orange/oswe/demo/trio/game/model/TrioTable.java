@@ -0,0 +1,76 @@
+package com.orange.oswe.demo.trio.game.model;
+
+import java.util.Arrays;
+
+/**
+ * Precomputed trio completion table
+ * <p>
+ * With 81 cards, the card completing a trio with any 2 others is fixed: it is looked up in a 81 x 81 table (6.5 KB)
+ * instead of being computed attribute by attribute. The table also answers trio validity: 3 cards are a trio iff the
+ * third one completes the first 2.
+ * <p>
+ * Tables are indexed by card index (0 to 80), mapped from/to {@link Card#getValue() card values}.
+ */
+public final class TrioTable {
+
+    private static final int CARDS = Game.TOTAL_NUMBER_OF_CARDS;
+
+    // card index by card value (-1 if not a card)
+    private static final byte[] INDEX = new byte[256];
+    // card value completing a trio, by pair of card indexes
+    private static final byte[] THIRD = new byte[CARDS * CARDS];
+
+    static {
+        Arrays.fill(INDEX, (byte) -1);
+        int[] values = new int[CARDS];
+        int n = 0;
+        for (int value = 0; value < INDEX.length; value++) {
+            if ((value & 0x03) < 3 && ((value >> 2) & 0x03) < 3 && ((value >> 4) & 0x03) < 3 && ((value >> 6) & 0x03) < 3) {
+                INDEX[value] = (byte) n;
+                values[n++] = value;
+            }
+        }
+        for (int i = 0; i < CARDS; i++) {
+            for (int j = 0; j < CARDS; j++) {
+                THIRD[i * CARDS + j] = (byte) computeThird(values[i], values[j]);
+            }
+        }
+    }
+
+    private TrioTable() {
+    }
+
+    /**
+     * Returns the index (0 to 80) of the given card value
+     */
+    public static int indexOf(int value) {
+        return INDEX[value];
+    }
+
+    /**
+     * Returns the only card value that completes a trio with the 2 given ones
+     */
+    public static int third(int value1, int value2) {
+        return THIRD[INDEX[value1] * CARDS + INDEX[value2]] & 0xFF;
+    }
+
+    /**
+     * Determines whether the 3 given card values are a trio
+     */
+    public static boolean isTrio(int value1, int value2, int value3) {
+        return third(value1, value2) == value3;
+    }
+
+    /**
+     * On each attribute, the 3 values sum up to a multiple of 3 (all equal or all different)
+     */
+    private static int computeThird(int value1, int value2) {
+        int value3 = 0;
+        for (int shift = 0; shift < 8; shift += 2) {
+            int attr1 = (value1 >> shift) & 0x03;
+            int attr2 = (value2 >> shift) & 0x03;
+            value3 |= ((6 - attr1 - attr2) % 3) << shift;
+        }
+        return value3;
+    }
+}
@@ -0,0 +1,327 @@
+package com.orange.oswe.demo.trio.journal;
+
+import com.orange.oswe.demo.trio.domain.User;
+import com.orange.oswe.demo.trio.game.actions.Action;
+import com.orange.oswe.demo.trio.game.events.Event;
+import com.orange.oswe.demo.trio.game.model.Game;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Append-only journal of the actions and events of each game
+ * <p>
+ * Each game has its own directory of segments: memory-mapped files of {@code segment_size} bytes, named after their
+ * index, holding length-prefixed records ({@code length(4), type(1), timestamp(8), payload}, see
+ * {@link JournalRecord}); a zero length marks the end of the written records.
+ * <p>
+ * Appending only encodes the record and queues it: a single writer thread copies the queued records to the
+ * segments, then forces the modified segments to disk once for the whole batch (group commit). The game engines thus
+ * never wait for the disk. Disabled when {@code trio.journal.dir} is empty.
+ */
+@Component
+public class GameJournal {
+    private static final Logger LOGGER = LoggerFactory.getLogger(GameJournal.class);
+
+    static final int HEADER_SIZE = 4 + 1 + 8;
+
+    private static final int MAX_BATCH = 1024;
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final Pattern GAME_ID = Pattern.compile("[0-9a-zA-Z_-]+");
+
+    private final Path dir;
+    private final int segmentSize;
+
+    private final BlockingQueue<Entry> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    // --- only accessed by the writer thread
+    private final Map<String, Segments> segments = new HashMap<>();
+    private final Set<Segments> dirty = new HashSet<>();
+    private final List<Entry> batch = new ArrayList<>(MAX_BATCH);
+
+    public GameJournal(@Value("${trio.journal.dir:}") String dir, @Value("${trio.journal.segment_size:1048576}") int segmentSize) {
+        this.dir = dir == null || dir.isEmpty() ? null : Paths.get(dir);
+        this.segmentSize = segmentSize;
+        if (this.dir == null) {
+            writer = null;
+        } else {
+            writer = new Thread(this::run, "trio-journal");
+            writer.setDaemon(true);
+            writer.start();
+        }
+    }
+
+    public boolean isEnabled() {
+        return dir != null;
+    }
+
+    // ================================================================================================================
+    // === append (any thread)
+    // ================================================================================================================
+    public void created(Game game) {
+        append(game.getId(), JournalRecord.created(game));
+    }
+
+    public void action(String gameId, User user, Action action) {
+        append(gameId, JournalRecord.action(user, action));
+    }
+
+    public void event(String gameId, Event event) {
+        append(gameId, JournalRecord.event(event));
+    }
+
+    public void shuffled(String gameId, long seed) {
+        append(gameId, JournalRecord.shuffled(seed));
+    }
+
+    private void append(String gameId, JournalRecord record) {
+        if (isEnabled()) {
+            queue.add(new Entry(gameId, record, null, false));
+        }
+    }
+
+    /**
+     * Closes the journal of a game: its segments are forced and unmapped (they are kept for analysis)
+     */
+    public void close(String gameId) {
+        if (isEnabled()) {
+            queue.add(new Entry(gameId, null, null, true));
+        }
+    }
+
+    /**
+     * Returns a future completed once all the records appended so far are on disk
+     */
+    public CompletableFuture<Void> sync() {
+        CompletableFuture<Void> synced = new CompletableFuture<>();
+        if (isEnabled()) {
+            queue.add(new Entry(null, null, synced, false));
+        } else {
+            synced.complete(null);
+        }
+        return synced;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (!isEnabled()) {
+            return;
+        }
+        running = false;
+        try {
+            writer.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ================================================================================================================
+    // === read
+    // ================================================================================================================
+    /**
+     * Reads the journal of the given game
+     * <p>
+     * Records still queued are not read: {@link #sync()} first to read all appended records
+     *
+     * @return the records, in order (empty if the game has no journal)
+     */
+    public List<JournalRecord> read(String gameId) throws IOException {
+        List<JournalRecord> records = new ArrayList<>();
+        if (!isEnabled() || !GAME_ID.matcher(gameId).matches()) {
+            return records;
+        }
+        for (Path segment : segments(dir.resolve(gameId))) {
+            try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+                scan(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), records);
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Rebuilds the given game from its journal (see {@link GameReplay})
+     */
+    public Optional<GameReplay.Result> replay(String gameId) throws IOException {
+        List<JournalRecord> records = read(gameId);
+        return records.isEmpty() ? Optional.empty() : Optional.of(GameReplay.replay(gameId, records));
+    }
+
+    private static List<Path> segments(Path gameDir) throws IOException {
+        if (!Files.isDirectory(gameDir)) {
+            return Collections.emptyList();
+        }
+        try (Stream<Path> files = Files.list(gameDir)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(SEGMENT_SUFFIX)).sorted().collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Reads the records from the buffer position, up to the end marker (or the end of the buffer)
+     * <p>
+     * The buffer is left positioned at the end marker
+     */
+    private static void scan(ByteBuffer buffer, List<JournalRecord> records) throws IOException {
+        while (buffer.remaining() >= 4) {
+            int length = buffer.getInt(buffer.position());
+            if (length == 0) {
+                return;
+            }
+            if (length < HEADER_SIZE - 4 || length > buffer.remaining() - 4) {
+                throw new IOException("Corrupted journal record at " + buffer.position());
+            }
+            buffer.getInt();
+            int type = buffer.get();
+            if (type < 0 || type >= JournalRecord.Type.values().length) {
+                throw new IOException("Corrupted journal record type at " + (buffer.position() - 1));
+            }
+            long timestamp = buffer.getLong();
+            byte[] payload = new byte[length - (HEADER_SIZE - 4)];
+            buffer.get(payload);
+            if (records != null) {
+                records.add(new JournalRecord(JournalRecord.Type.values()[type], timestamp, payload));
+            }
+        }
+    }
+
+    // ================================================================================================================
+    // === writer thread
+    // ================================================================================================================
+    private void run() {
+        while (running || !queue.isEmpty()) {
+            try {
+                Entry first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, MAX_BATCH - 1);
+                writeBatch();
+            } catch (InterruptedException e) {
+                running = false;
+            } catch (RuntimeException e) {
+                LOGGER.error("game journal writer error", e);
+            } finally {
+                batch.clear();
+            }
+        }
+        for (Segments game : segments.values()) {
+            game.close();
+        }
+        segments.clear();
+        LOGGER.info("game journal stopped");
+    }
+
+    private void writeBatch() {
+        List<CompletableFuture<Void>> synced = new ArrayList<>();
+        for (Entry entry : batch) {
+            if (entry.synced != null) {
+                synced.add(entry.synced);
+            } else if (entry.close) {
+                Segments game = segments.remove(entry.gameId);
+                if (game != null) {
+                    dirty.remove(game);
+                    game.close();
+                }
+            } else {
+                try {
+                    Segments game = segments.get(entry.gameId);
+                    if (game == null) {
+                        game = new Segments(dir.resolve(entry.gameId), segmentSize);
+                        segments.put(entry.gameId, game);
+                    }
+                    game.append(entry.record);
+                    dirty.add(game);
+                } catch (IOException | RuntimeException e) {
+                    LOGGER.error("could not journal {} of game {}: dropped", entry.record.getType(), entry.gameId, e);
+                }
+            }
+        }
+        // --- group commit
+        for (Segments game : dirty) {
+            game.force();
+        }
+        dirty.clear();
+        synced.forEach(future -> future.complete(null));
+    }
+
+    private static final class Entry {
+        private final String gameId;
+        private final JournalRecord record;
+        private final CompletableFuture<Void> synced;
+        private final boolean close;
+
+        private Entry(String gameId, JournalRecord record, CompletableFuture<Void> synced, boolean close) {
+            this.gameId = gameId;
+            this.record = record;
+            this.synced = synced;
+            this.close = close;
+        }
+    }
+
+    /**
+     * Segments of a game journal; only the last one is mapped
+     */
+    private static final class Segments {
+        private final Path dir;
+        private final int segmentSize;
+        private int index;
+        private MappedByteBuffer buffer;
+
+        private Segments(Path dir, int segmentSize) throws IOException {
+            this.dir = dir;
+            this.segmentSize = segmentSize;
+            Files.createDirectories(dir);
+            List<Path> existing = segments(dir);
+            if (existing.isEmpty()) {
+                map(0, segmentSize);
+            } else {
+                // --- journal of a restored game: go on after its last record
+                String last = existing.get(existing.size() - 1).getFileName().toString();
+                map(Integer.parseInt(last.substring(0, last.length() - SEGMENT_SUFFIX.length())), segmentSize);
+                scan(buffer, null);
+            }
+        }
+
+        private void map(int index, int minSize) throws IOException {
+            this.index = index;
+            Path file = dir.resolve(String.format("%010d%s", index, SEGMENT_SUFFIX));
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(channel.size(), minSize));
+            }
+        }
+
+        private void append(JournalRecord record) throws IOException {
+            int size = HEADER_SIZE + record.getPayload().length;
+            if (buffer.remaining() < size) {
+                buffer.force();
+                map(index + 1, Math.max(segmentSize, size));
+            }
+            buffer.putInt(size - 4).put((byte) record.getType().ordinal()).putLong(record.getTimestamp()).put(record.getPayload());
+        }
+
+        private void force() {
+            buffer.force();
+        }
+
+        private void close() {
+            buffer.force();
+            // --- unmapped when collected
+            buffer = null;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.orange.oswe.demo.trio.journal;
+
+import com.orange.oswe.demo.trio.game.Deck;
+import com.orange.oswe.demo.trio.game.events.Event;
+import com.orange.oswe.demo.trio.game.model.Card;
+import com.orange.oswe.demo.trio.game.model.Game;
+import com.orange.oswe.demo.trio.game.model.Player;
+import lombok.Value;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Rebuilds a {@link Game} from its journal, by applying its events the way the engine changed the game
+ * <p>
+ * Actions are not replayed (the events are their outcome). The deck is only journaled as its seed (see {@link Deck#shuffled(long)}):
+ * it is shuffled again from the last {@code shuffled} record and fast-forwarded past the cards drawn since.
+ */
+public final class GameReplay {
+
+    /**
+     * A replayed game, with the rest of its deck (empty if the game was never dealt from a journaled seed)
+     */
+    @Value
+    public static class Result {
+        private final Game game;
+        private final Optional<Deck> deck;
+    }
+
+    private GameReplay() {
+    }
+
+    public static Result replay(String gameId, List<JournalRecord> records) throws IOException {
+        Game game = null;
+        Deck deck = null;
+        for (JournalRecord record : records) {
+            switch (record.getType()) {
+                case created:
+                    Player owner = record.getPlayer();
+                    game = new Game(gameId, owner.getId(), record.getCreated());
+                    game.add(owner);
+                    break;
+                case event:
+                    if (game == null) {
+                        throw new IOException("Journal of game " + gameId + " does not start with its creation");
+                    }
+                    Event event = record.getEvent();
+                    apply(game, event);
+                    if (event.getType() == Event.Type.game_state_changed && game.getState() == Game.State.preparing) {
+                        // --- the next start shuffles a new deck
+                        deck = null;
+                    } else if (event.getType() == Event.Type.cards_drawn && deck != null) {
+                        for (Card card : ((Event.CardsDrawnEvent) event).getCards()) {
+                            if (deck.isEmpty() || deck.draw() != card.getValue()) {
+                                throw new IOException("Journal of game " + gameId + ": drawn cards do not match the deck seed");
+                            }
+                        }
+                    }
+                    break;
+                case shuffled:
+                    deck = Deck.shuffled(record.getSeed());
+                    break;
+                default:
+                    break;
+            }
+        }
+        if (game == null) {
+            throw new IOException("Journal of game " + gameId + " does not start with its creation");
+        }
+        return new Result(game, Optional.ofNullable(deck));
+    }
+
+    /**
+     * Applies an event to the game
+     */
+    public static void apply(Game game, Event event) {
+        switch (event.getType()) {
+            case game_state_changed: {
+                Game.State state = ((Event.GameStateChanged) event).getState();
+                if (state == Game.State.over) {
+                    game.clearQueue();
+                } else {
+                    game.reset();
+                }
+                game.setState(state);
+                break;
+            }
+            case player_joined:
+                game.add(((Event.PlayerEvent) event).getPlayer());
+                break;
+            case player_left:
+                game.remove(((Event.PlayerEvent) event).getPlayer());
+                break;
+            case player_selects:
+            case player_declares:
+            case select_timeout:
+            case select_giveup:
+            case select_nolonger: {
+                Event.GameEvent e = (Event.GameEvent) event;
+                apply(game, e.getPlayer(), e.getNewScore(), e.getQueueDelta());
+                break;
+            }
+            case select_failure: {
+                Event.TrioFailureEvent e = (Event.TrioFailureEvent) event;
+                apply(game, e.getPlayer(), e.getNewScore(), e.getQueueDelta());
+                break;
+            }
+            case select_success: {
+                Event.TrioFoundEvent e = (Event.TrioFoundEvent) event;
+                for (int position : e.getPositions()) {
+                    game.removeCard(position);
+                }
+                apply(game, e.getPlayer(), e.getNewScore(), e.getQueueDelta());
+                break;
+            }
+            case cards_moved: {
+                Event.CardsMovedEvent e = (Event.CardsMovedEvent) event;
+                for (int i = 0; i < e.getFrom().length; i++) {
+                    game.moveCard(e.getFrom()[i], e.getTo()[i]);
+                }
+                break;
+            }
+            case cards_drawn: {
+                Event.CardsDrawnEvent e = (Event.CardsDrawnEvent) event;
+                for (int i = 0; i < e.getCards().length; i++) {
+                    game.setCard(e.getPositions()[i], e.getCards()[i].getValue());
+                }
+                game.setCardsLeft(e.getNbCardsBeforeDraw() - e.getCards().length);
+                break;
+            }
+        }
+        game.setSeq(event.getSeq());
+    }
+
+    private static void apply(Game game, Player player, Integer newScore, Event.QueueDelta queueDelta) {
+        if (newScore != null) {
+            game.setScore(player.getId(), newScore);
+        }
+        for (int i = 0; i < queueDelta.getPolled(); i++) {
+            game.dequeue();
+        }
+        for (String playerId : queueDelta.getPushed()) {
+            game.enqueue(playerId);
+        }
+    }
+}
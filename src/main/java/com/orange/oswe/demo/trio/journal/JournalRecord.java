@@ -0,0 +1,122 @@
+package com.orange.oswe.demo.trio.journal;
+
+import com.orange.oswe.demo.trio.domain.User;
+import com.orange.oswe.demo.trio.game.actions.Action;
+import com.orange.oswe.demo.trio.game.events.BinaryEventCodec;
+import com.orange.oswe.demo.trio.game.events.Event;
+import com.orange.oswe.demo.trio.game.model.Game;
+import com.orange.oswe.demo.trio.game.model.Player;
+import lombok.Value;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.Arrays;
+
+/**
+ * A record of a game journal
+ * <p>
+ * Payload, depending on the type:
+ * <ul>
+ *     <li>{@link Type#created}: owner id, owner name (modified UTF-8), creation date (8, epoch ms),</li>
+ *     <li>{@link Type#action}: user id, user name (modified UTF-8), action ({@link BinaryEventCodec#encode(Action)}),</li>
+ *     <li>{@link Type#event}: event ({@link BinaryEventCodec#encode(Event)}),</li>
+ *     <li>{@link Type#shuffled}: deck seed (8).</li>
+ * </ul>
+ */
+@Value
+public class JournalRecord {
+    public enum Type {
+        created, action, event, shuffled
+    }
+
+    private final Type type;
+    /**
+     * time the record was appended (epoch ms)
+     */
+    private final long timestamp;
+    private final byte[] payload;
+
+    public static JournalRecord created(Game game) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+            DataOutputStream out = new DataOutputStream(bytes);
+            Player owner = game.getOwner();
+            out.writeUTF(game.getOwnerId());
+            out.writeUTF(owner == null || owner.getName() == null ? "" : owner.getName());
+            out.writeLong(game.getCreated().toEpochMilli());
+            return new JournalRecord(Type.created, System.currentTimeMillis(), bytes.toByteArray());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static JournalRecord action(User user, Action action) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeUTF(user.getUsername());
+            out.writeUTF(user.getFullname() == null ? "" : user.getFullname());
+            out.write(BinaryEventCodec.encode(action));
+            return new JournalRecord(Type.action, System.currentTimeMillis(), bytes.toByteArray());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static JournalRecord event(Event event) {
+        return new JournalRecord(Type.event, System.currentTimeMillis(), BinaryEventCodec.encode(event));
+    }
+
+    public static JournalRecord shuffled(long seed) {
+        return new JournalRecord(Type.shuffled, System.currentTimeMillis(), ByteBuffer.allocate(8).putLong(seed).array());
+    }
+
+    /**
+     * The owner ({@link Type#created}) or the user ({@link Type#action})
+     */
+    public Player getPlayer() throws IOException {
+        DataInputStream in = input(Type.created, Type.action);
+        return new Player(in.readUTF(), in.readUTF());
+    }
+
+    /**
+     * The game creation date ({@link Type#created})
+     */
+    public Instant getCreated() throws IOException {
+        DataInputStream in = input(Type.created);
+        in.readUTF();
+        in.readUTF();
+        return Instant.ofEpochMilli(in.readLong());
+    }
+
+    public Action getAction() throws IOException {
+        DataInputStream in = input(Type.action);
+        in.readUTF();
+        in.readUTF();
+        byte[] action = new byte[in.available()];
+        in.readFully(action);
+        return BinaryEventCodec.decodeAction(action);
+    }
+
+    public Event getEvent() {
+        if (type != Type.event) {
+            throw new IllegalStateException("Not an event record: " + type);
+        }
+        return BinaryEventCodec.decode(payload);
+    }
+
+    /**
+     * The seed the game deck was shuffled from ({@link Type#shuffled})
+     */
+    public long getSeed() throws IOException {
+        return input(Type.shuffled).readLong();
+    }
+
+    private DataInputStream input(Type... types) {
+        if (!Arrays.asList(types).contains(type)) {
+            throw new IllegalStateException("Unexpected journal record type: " + type);
+        }
+        return new DataInputStream(new ByteArrayInputStream(payload));
+    }
+}
@@ -11,6 +11,7 @@ import com.orange.oswe.demo.trio.domain.User;
 import com.orange.oswe.demo.trio.game.actions.GameNotFound;
 import com.orange.oswe.demo.trio.repository.AuthorityRepository;
 import com.orange.oswe.demo.trio.repository.UserRepository;
+import com.orange.oswe.demo.trio.service.UserCacheService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -48,6 +49,9 @@ public class AccountController {
 	@Autowired
 	private AuthorityRepository authorityRepository;
 
+	@Autowired
+	private UserCacheService userCache;
+
 	@RequestMapping(value = "/login", method = RequestMethod.GET)
 	public ModelAndView loginView(HttpServletRequest request, HttpServletResponse response) {
 		ModelAndView modelView = new ModelAndView("login");
@@ -79,6 +83,7 @@ public class AccountController {
 		User user = new User(form.getUsername(), form.getFullname(), encodedPwd);
 		user.addAuthority(authorityRepository.findByAuthority("ROLE_USER"));
 		userRepository.save(user);
+		userCache.invalidate(user.getUsername());
 		
 		logger.debug(" ... new user created");
 		
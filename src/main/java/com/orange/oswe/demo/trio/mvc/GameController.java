@@ -7,18 +7,22 @@
  */
 package com.orange.oswe.demo.trio.mvc;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.orange.oswe.demo.trio.cluster.ClusterService;
 import com.orange.oswe.demo.trio.domain.User;
 import com.orange.oswe.demo.trio.game.Engine;
 import com.orange.oswe.demo.trio.game.actions.Action;
 import com.orange.oswe.demo.trio.game.actions.ActionException;
 import com.orange.oswe.demo.trio.game.actions.GameNotFound;
 import com.orange.oswe.demo.trio.game.actions.Unauthorized;
-import com.orange.oswe.demo.trio.game.model.Game;
+import com.orange.oswe.demo.trio.game.model.GameView;
 import com.orange.oswe.demo.trio.repository.GameRepository;
 import com.orange.oswe.demo.trio.service.CurrentUserService;
+import com.orange.oswe.demo.trio.service.EventBroadcastService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.security.core.Authentication;
@@ -27,7 +31,8 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.ModelAndView;
 
 import java.util.List;
-import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
@@ -43,18 +48,30 @@ public class GameController {
     @Autowired
     private CurrentUserService currentUser;
 
+    @Autowired
+    private EventBroadcastService eventBroadcastService;
+
+    @Autowired
+    private ClusterService clusterService;
+
+    @Value("${trio.broker.errors_destination:/down/errors}")
+    private String errorsDestination;
+
     // ================================================================================================================
     // === HTML pages
     // ================================================================================================================
     @RequestMapping(value = "/{id}", method = RequestMethod.GET, produces = {MediaType.TEXT_HTML_VALUE, MediaType.APPLICATION_XHTML_XML_VALUE})
     public ModelAndView viewGame(Authentication authentication, @PathVariable("id") String id) throws GameNotFound {
         logger.debug("(HTML) view game {}", id);
-        Optional<Engine> engine = gameRepository.findById(id);
-        if (!engine.isPresent()) {
+        // --- games owned by other nodes are checked when the page loads them
+        if (clusterService.isLocal(id) && !gameRepository.existsById(id)) {
             throw new GameNotFound("Game " + id + " not found");
         }
         ModelAndView modelAndView = new ModelAndView("game");
         modelAndView.addObject("gameId", id);
+        modelAndView.addObject("eventsDestination", eventBroadcastService.destination(id));
+        modelAndView.addObject("binaryEventsDestination", eventBroadcastService.binaryDestination(id));
+        modelAndView.addObject("errorsDestination", "/user" + errorsDestination);
 
         // me
         if (authentication != null && authentication.isAuthenticated()) {
@@ -66,17 +83,32 @@ public class GameController {
     }
 
     @RequestMapping(method = RequestMethod.POST, produces = {MediaType.TEXT_HTML_VALUE, MediaType.APPLICATION_XHTML_XML_VALUE})
-    public ModelAndView createGameAndRedirect(Authentication authentication) throws Unauthorized {
+    public CompletableFuture<ModelAndView> createGameAndRedirect(Authentication authentication) throws Unauthorized {
         logger.debug("(HTML) create new game");
-        Game game = createGame(authentication);
-        return new ModelAndView("redirect:/games/" + game.getId());
+        // --- not thenApply: errors shall reach the error handlers unwrapped (see unwrap)
+        CompletableFuture<ModelAndView> redirect = new CompletableFuture<>();
+        createGame(authentication).whenComplete((game, error) -> {
+            if (error != null) {
+                redirect.completeExceptionally(unwrap(error));
+            } else {
+                redirect.complete(new ModelAndView("redirect:/games/" + game.get("id").asText()));
+            }
+        });
+        return redirect;
     }
 
     @RequestMapping(value = "/{id}/players", method = RequestMethod.POST, produces = {MediaType.TEXT_HTML_VALUE, MediaType.APPLICATION_XHTML_XML_VALUE})
-    public ModelAndView joinGameAndRedirect(Authentication authentication, @PathVariable("id") String id) throws ActionException {
+    public CompletableFuture<ModelAndView> joinGameAndRedirect(Authentication authentication, @PathVariable("id") String id) throws ActionException {
         logger.debug("(HTML) join game");
-        handleGameAction(authentication, id, new Action(Action.Type.player_join));
-        return new ModelAndView("redirect:/games/" + id);
+        CompletableFuture<ModelAndView> redirect = new CompletableFuture<>();
+        handleGameAction(authentication, id, new Action(Action.Type.player_join)).whenComplete((result, error) -> {
+            if (error != null) {
+                redirect.completeExceptionally(unwrap(error));
+            } else {
+                redirect.complete(new ModelAndView("redirect:/games/" + id));
+            }
+        });
+        return redirect;
     }
 
     // ================================================================================================================
@@ -84,56 +116,61 @@ public class GameController {
     // ================================================================================================================
     @RequestMapping(method = RequestMethod.GET, produces = MediaType.APPLICATION_JSON_VALUE)
     @ResponseBody
-    public List<Game> getAllGames() {
+    public List<GameView> getAllGames() {
         logger.debug("(API) get all games");
-        return StreamSupport.stream(gameRepository.findAll().spliterator(), false).map(Engine::getGame).collect(Collectors.toList());
+        return StreamSupport.stream(gameRepository.findAll().spliterator(), false).map(Engine::getView).collect(Collectors.toList());
     }
 
     @RequestMapping(value = "/{id}", method = RequestMethod.GET, produces = MediaType.APPLICATION_JSON_VALUE)
     @ResponseStatus(HttpStatus.OK)
     @ResponseBody
-    public Game getGame(@PathVariable("id") String id) throws GameNotFound {
+    public CompletableFuture<byte[]> getGame(@PathVariable("id") String id) {
         logger.debug("(API) get game {}", id);
-        Optional<Engine> engine = gameRepository.findById(id);
-        if (!engine.isPresent()) {
-            throw new GameNotFound("Game " + id + " not found");
-        } else {
-            return engine.get().getGame();
-        }
+        return clusterService.getGame(id);
     }
 
     @RequestMapping(method = RequestMethod.POST, produces = MediaType.APPLICATION_JSON_VALUE)
     @ResponseStatus(HttpStatus.CREATED)
     @ResponseBody
-    public Game createGame(Authentication authentication) throws Unauthorized {
+    public CompletableFuture<JsonNode> createGame(Authentication authentication) throws Unauthorized {
         logger.debug("(API) create new game");
         if (authentication != null && authentication.isAuthenticated()) {
             User me = currentUser.getCurrentUser();
-            return gameRepository.createNew(me).getGame();
+            return clusterService.createGame(me);
         } else {
             // unauthorized
             throw new Unauthorized("You must be authenticated to create a game");
         }
     }
 
+    /**
+     * Posts the action to the game engine mailbox (possibly on another node, see {@link ClusterService})
+     * <p>
+     * The request is processed asynchronously: the response is sent once the engine has handled the action.
+     * Clients connected to the websocket send their actions over STOMP instead (see {@link GameMessageController}).
+     */
     @RequestMapping(value = "/{id}/actions", method = RequestMethod.POST, consumes = MediaType.APPLICATION_JSON_VALUE)
     @ResponseStatus(HttpStatus.OK)
-    public void handleGameAction(Authentication authentication, @PathVariable("id") String id, @RequestBody Action action) throws ActionException {
+    @ResponseBody
+    public CompletableFuture<Void> handleGameAction(Authentication authentication, @PathVariable("id") String id, @RequestBody Action action) throws ActionException {
         if (authentication != null && authentication.isAuthenticated()) {
             User me = currentUser.getCurrentUser();
             logger.info("handleGameAction {} from {}", action, me);
-            Optional<Engine> engine = gameRepository.findById(id);
-            if (!engine.isPresent()) {
-                throw new GameNotFound("Game " + id + " not found");
-            } else {
-                engine.get().handle(me, action);
-            }
+            return clusterService.submit(id, me, action);
         } else {
             // unauthorized
             throw new Unauthorized("You must be authenticated to send game actions");
         }
     }
 
+    /**
+     * Futures derived from another one (e.g. remote calls in {@link ClusterService}) fail with a CompletionException:
+     * returns its cause, so that {@code @ResponseStatus} exceptions are mapped as such
+     */
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
     @ExceptionHandler(GameNotFound.class)
     @ResponseStatus(HttpStatus.NOT_FOUND)
     @ResponseBody
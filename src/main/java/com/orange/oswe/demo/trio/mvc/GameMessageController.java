@@ -0,0 +1,125 @@
+package com.orange.oswe.demo.trio.mvc;
+
+import com.orange.oswe.demo.trio.cluster.ClusterService;
+import com.orange.oswe.demo.trio.domain.User;
+import com.orange.oswe.demo.trio.game.actions.Action;
+import com.orange.oswe.demo.trio.game.actions.Unauthorized;
+import com.orange.oswe.demo.trio.service.UserCacheService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.MessageConversionException;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.handler.annotation.MessageExceptionHandler;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import java.security.Principal;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+
+/**
+ * STOMP counterpart of {@link GameController#handleGameAction}: game actions sent to {@code /up/games/{id}/actions}
+ * on the persistent socket, without the per-request HTTP overhead
+ * <p>
+ * The sender is authenticated once, when the socket is opened; its user is then cached in the STOMP session.
+ * Rejected actions are reported to the sending session only, on the {@code /user{errors_destination}} destination.
+ */
+@Controller
+public class GameMessageController {
+
+    private static final Logger logger = LoggerFactory.getLogger(GameMessageController.class);
+
+    private static final String USER_ATTRIBUTE = GameMessageController.class.getName() + ".user";
+
+    @Value("${trio.broker.errors_destination:/down/errors}")
+    private String errorsDestination;
+
+    @Autowired
+    private ClusterService clusterService;
+
+    @Autowired
+    private UserCacheService userCache;
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @MessageMapping("/games/{id}/actions")
+    public void handleGameAction(@DestinationVariable("id") String id, @Payload Action action, Principal principal, SimpMessageHeaderAccessor headers) throws Unauthorized {
+        User me = currentUser(principal, headers);
+        logger.info("handleGameAction {} from {} (STOMP)", action, me);
+        String sessionId = headers.getSessionId();
+        clusterService.submit(id, me, action).whenComplete((result, error) -> {
+            if (error != null) {
+                sendError(principal.getName(), sessionId, id, action, error);
+            }
+        });
+    }
+
+    @MessageExceptionHandler
+    public void handleError(Exception error, @DestinationVariable("id") String id, Principal principal, SimpMessageHeaderAccessor headers) {
+        if (principal == null) {
+            logger.warn("Unauthenticated STOMP action on game {}: {}", id, error.getMessage());
+            return;
+        }
+        sendError(principal.getName(), headers.getSessionId(), id, null, error);
+    }
+
+    private User currentUser(Principal principal, SimpMessageHeaderAccessor headers) throws Unauthorized {
+        if (principal == null) {
+            throw new Unauthorized("You must be authenticated to send game actions");
+        }
+        Map<String, Object> session = headers.getSessionAttributes();
+        User user = session == null ? null : (User) session.get(USER_ATTRIBUTE);
+        if (user == null) {
+            user = userCache.findByUsername(principal.getName());
+            if (user == null) {
+                throw new Unauthorized("Unknown user " + principal.getName());
+            }
+            if (session != null) {
+                session.put(USER_ATTRIBUTE, user);
+            }
+        }
+        return user;
+    }
+
+    private void sendError(String username, String sessionId, String gameId, Action action, Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("gameId", gameId);
+        payload.put("action", action == null ? null : action.getType());
+        payload.put("status", statusOf(cause).value());
+        payload.put("message", cause.getMessage());
+        logger.info("action on game {} from {} rejected: {}", gameId, username, cause.getMessage());
+        messagingTemplate.convertAndSendToUser(username, errorsDestination, payload, sessionHeaders(sessionId));
+    }
+
+    private static HttpStatus statusOf(Throwable error) {
+        if (error instanceof MessageConversionException) {
+            // --- malformed action frame
+            return HttpStatus.BAD_REQUEST;
+        }
+        ResponseStatus status = AnnotationUtils.findAnnotation(error.getClass(), ResponseStatus.class);
+        return status == null ? HttpStatus.INTERNAL_SERVER_ERROR : status.value();
+    }
+
+    /**
+     * Headers targeting a single STOMP session of the user
+     */
+    private static MessageHeaders sessionHeaders(String sessionId) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(sessionId);
+        accessor.setLeaveMutable(true);
+        return accessor.getMessageHeaders();
+    }
+}
@@ -9,46 +9,66 @@ package com.orange.oswe.demo.trio.mvc;
 
 import com.orange.oswe.demo.trio.domain.User;
 import com.orange.oswe.demo.trio.game.Engine;
-import com.orange.oswe.demo.trio.game.model.Game;
+import com.orange.oswe.demo.trio.game.model.GameView;
 import com.orange.oswe.demo.trio.repository.GameRepository;
 import com.orange.oswe.demo.trio.service.CurrentUserService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.servlet.ModelAndView;
 
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Optional;
+import java.util.Set;
 import java.util.TimeZone;
 import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
 
 @Controller
 public class HomeController {
 	
 	private static final Logger logger = LoggerFactory.getLogger(HomeController.class);
 
+	/**
+	 * Number of other games per page (the most recent ones first)
+	 */
+	@Value("${trio.home.other_games_page_size:30}")
+	private int otherGamesPageSize;
+
 	@Autowired
 	private GameRepository gameRepository;
 
 	@RequestMapping("/")
-	public ModelAndView home(Authentication authentication, Locale userLocale) {
+	public ModelAndView home(Authentication authentication, Locale userLocale, @RequestParam(name="before", required=false) String before) {
 		ModelAndView modelAndView = new ModelAndView("home");
 		String meId = authentication != null && authentication.isAuthenticated() ? authentication.getName() : null;
+		Set<String> myGameIds = new HashSet<>();
 		if (meId != null) {
-			Optional<Game> mygame = StreamSupport.stream(gameRepository.findAll().spliterator(), false).map(Engine::getGame).filter(g -> g.getOwnerId() == meId).findFirst();
+			// --- served from the repository indexes: no scan of all games
+			Optional<GameView> mygame = gameRepository.findByOwner(meId).stream().map(Engine::getView).findFirst();
 			if(mygame.isPresent()) {
 				modelAndView.addObject("mygame", mygame.get());
 			}
-			List<Game> gamesiamin = StreamSupport.stream(gameRepository.findAll().spliterator(), false).map(Engine::getGame).filter(g -> g.getOwnerId() != meId && g.getPlayers().get(meId) != null).collect(Collectors.toList());
+			List<GameView> gamesiamin = gameRepository.findByPlayer(meId).stream().map(Engine::getView).filter(g -> !meId.equals(g.getOwnerId())).collect(Collectors.toList());
 			modelAndView.addObject("gamesiamin", gamesiamin);
+			// --- including owned games I have left (listed as mygame)
+			myGameIds.addAll(gameRepository.findIdsByOwner(meId));
+			myGameIds.addAll(gameRepository.findIdsByPlayer(meId));
 		}
 		modelAndView.addObject("ui", new UiTool(TimeZone.getDefault(), userLocale));
-		List<Game> othergames = StreamSupport.stream(gameRepository.findAll().spliterator(), false).map(Engine::getGame).filter(g -> meId == null || g.getOwnerId() != meId || g.getPlayers().get(meId) == null).collect(Collectors.toList());
+		// --- one more game tells whether there are older ones
+		List<GameView> othergames = gameRepository.findRecent(before == null || before.isEmpty() ? null : before, otherGamesPageSize + 1, myGameIds)
+				.stream().map(Engine::getView).collect(Collectors.toList());
+		if (othergames.size() > otherGamesPageSize) {
+			othergames = othergames.subList(0, otherGamesPageSize);
+			modelAndView.addObject("olderGames", othergames.get(otherGamesPageSize - 1).getId());
+		}
 		modelAndView.addObject("othergames", othergames);
 		return modelAndView;
 	}
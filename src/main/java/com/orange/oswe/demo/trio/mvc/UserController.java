@@ -8,19 +8,28 @@
 package com.orange.oswe.demo.trio.mvc;
 
 import com.orange.oswe.demo.trio.domain.User;
+import com.orange.oswe.demo.trio.domain.UserSummary;
 import com.orange.oswe.demo.trio.repository.UserRepository;
+import com.orange.oswe.demo.trio.service.UserCacheService;
+import lombok.Value;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort.Direction;
+import org.springframework.http.MediaType;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.servlet.ModelAndView;
 
+import java.util.List;
+
 @Controller
  @RequestMapping(value = "/users")
 public class UserController {
@@ -30,35 +39,81 @@ public class UserController {
 	@Autowired
 	private UserRepository userRepository;
 
-	@RequestMapping(value = "", method = RequestMethod.GET)
-	public ModelAndView allUsers(Authentication authentication, @RequestParam(name="dir", defaultValue="ASC") Direction direction) {
+	@Autowired
+	private UserCacheService userCache;
+
+	/**
+	 * Number of users per page
+	 */
+	private static final int PAGE_SIZE = 50;
+
+	/**
+	 * A page of users, and the username to start the next page {@code after} ({@code null} if last page)
+	 */
+	@Value
+	public static class UsersPage {
+		List<UserSummary> users;
+		String next;
+	}
+
+	@RequestMapping(value = "", method = RequestMethod.GET, produces = {MediaType.TEXT_HTML_VALUE, MediaType.APPLICATION_XHTML_XML_VALUE})
+	public ModelAndView allUsers(Authentication authentication, @RequestParam(name="dir", defaultValue="ASC") Direction direction,
+								 @RequestParam(name="after", required=false) String after) {
 		ModelAndView modelAndView = new ModelAndView("users");
-		Iterable<User> users = userRepository.findAll();
-		modelAndView.addObject("users", users);
+		UsersPage page = findPage(direction, after);
+		modelAndView.addObject("users", page.getUsers());
+		modelAndView.addObject("next", page.getNext());
 		modelAndView.addObject("direction", direction);
 		
 		// me
 		if(authentication != null && authentication.isAuthenticated()) {
 			String meId = authentication.getName();
-			User me = userRepository.findByUsername(meId);
+			User me = userCache.findByUsername(meId);
 			modelAndView.addObject("me", me);
 		}
 
 		return modelAndView;
 	}
 
+	@RequestMapping(value = "", method = RequestMethod.GET, produces = MediaType.APPLICATION_JSON_VALUE)
+	@ResponseBody
+	public UsersPage getUsers(@RequestParam(name="dir", defaultValue="ASC") Direction direction, @RequestParam(name="after", required=false) String after) {
+		logger.debug("(API) get users {} after {}", direction, after);
+		return findPage(direction, after);
+	}
+
+	/**
+	 * Loads a single page of users sorted by username, starting after the given one (keyset pagination)
+	 */
+	private UsersPage findPage(Direction direction, String after) {
+		// --- one more user tells whether there is a next page
+		Pageable page = new PageRequest(0, PAGE_SIZE + 1, direction, "username");
+		List<UserSummary> users;
+		if (after == null || after.isEmpty()) {
+			users = userRepository.findAllBy(page);
+		} else if (direction == Direction.ASC) {
+			users = userRepository.findByUsernameGreaterThan(after, page);
+		} else {
+			users = userRepository.findByUsernameLessThan(after, page);
+		}
+		if (users.size() > PAGE_SIZE) {
+			users = users.subList(0, PAGE_SIZE);
+			return new UsersPage(users, users.get(PAGE_SIZE - 1).getUsername());
+		}
+		return new UsersPage(users, null);
+	}
 
 	@RequestMapping(value = "/{username}", method = RequestMethod.GET)
 	public ModelAndView user(Authentication authentication, @PathVariable("username") String username, @RequestParam(name="pageNumber", required=false, defaultValue="0") int pageNumber) {
 		logger.debug("user {}", username);
 		ModelAndView modelAndView = new ModelAndView("user");
-		User user = userRepository.findByUsername(username);
+		User user = userCache.findByUsername(username);
 		modelAndView.addObject("user", user);
 
 		// me
 		if(authentication != null && authentication.isAuthenticated()) {
 			String meId = authentication.getName();
-			User me = userRepository.findByUsername(meId);
+			User me = userCache.findByUsername(meId);
 			modelAndView.addObject("me", me);
 		}
 		return modelAndView;
@@ -0,0 +1,82 @@
+package com.orange.oswe.demo.trio.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Snowflake-style game id generator
+ * <p>
+ * Ids are made of (from high to low bits):
+ * <ul>
+ *     <li>41 bits: milliseconds since {@link #EPOCH} (~69 years),</li>
+ *     <li>10 bits: node id (see {@code trio.cluster.node_id}),</li>
+ *     <li>12 bits: sequence within the millisecond.</li>
+ * </ul>
+ * and are rendered in base 36 (at most 13 chars) to keep topic names short.
+ * <p>
+ * Generation is lock-free: the last (timestamp, sequence) pair is held in a single {@link AtomicLong}. When the
+ * sequence is exhausted, or when the clock goes backwards, ids keep on increasing from the last one, so they are unique
+ * within a node whatever the clock does.
+ */
+@Component
+public class GameIdGenerator {
+    /**
+     * Custom epoch (2017-01-01T00:00:00Z)
+     */
+    static final long EPOCH = 1483228800000L;
+
+    static final int NODE_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+
+    private final long node;
+
+    /**
+     * (timestamp &lt;&lt; SEQUENCE_BITS | sequence) of the last generated id
+     */
+    private final AtomicLong last = new AtomicLong();
+
+    public GameIdGenerator(@Value("${trio.cluster.node_id:0}") int nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node id must be within [0, " + MAX_NODE_ID + "]: " + nodeId);
+        }
+        this.node = nodeId;
+    }
+
+    /**
+     * Generates a new id, as a long
+     */
+    public long nextLong() {
+        long now = (System.currentTimeMillis() - EPOCH) << SEQUENCE_BITS;
+        long prev, next;
+        do {
+            prev = last.get();
+            next = Math.max(prev + 1, now);
+        } while (!last.compareAndSet(prev, next));
+        long timestamp = next >>> SEQUENCE_BITS;
+        long sequence = next & ((1 << SEQUENCE_BITS) - 1);
+        return timestamp << (NODE_BITS + SEQUENCE_BITS) | node << SEQUENCE_BITS | sequence;
+    }
+
+    /**
+     * Generates a new id, in base 36
+     */
+    public String next() {
+        return Long.toString(nextLong(), Character.MAX_RADIX);
+    }
+
+    public int getNodeId() {
+        return (int) node;
+    }
+
+    /**
+     * Extracts the id of the node that generated the given (base 36) id
+     *
+     * @throws NumberFormatException if the id was not generated by this class
+     */
+    public static int nodeOf(String id) {
+        return (int) ((Long.parseLong(id, Character.MAX_RADIX) >>> SEQUENCE_BITS) & MAX_NODE_ID);
+    }
+}
@@ -1,40 +1,103 @@
 package com.orange.oswe.demo.trio.repository;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.orange.oswe.demo.trio.domain.User;
+import com.orange.oswe.demo.trio.game.Broadcaster;
 import com.orange.oswe.demo.trio.game.Engine;
+import com.orange.oswe.demo.trio.game.EngineSnapshot;
 import com.orange.oswe.demo.trio.game.Shuffler;
+import com.orange.oswe.demo.trio.game.TimeoutScheduler;
+import com.orange.oswe.demo.trio.game.actions.Action;
+import com.orange.oswe.demo.trio.game.events.Event;
+import com.orange.oswe.demo.trio.game.model.Player;
+import com.orange.oswe.demo.trio.journal.GameJournal;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Repository;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Optional;
-import java.util.UUID;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
 
 /**
+ * Thread-safe repository of live games
+ * <p>
+ * Besides the games by id, maintains secondary indexes of game ids by owner and by player, updated when players join
+ * and leave, so that finding the games of a user does not require scanning all games; and an index of the games by
+ * creation order, to list the most recent ones.
+ * <p>
+ * Live games are snapshotted periodically and on shutdown (see {@link GameSnapshotStore}), and restored on startup.
+ * Their actions and events are journaled (see {@link GameJournal}).
+ * <p>
  * Created by crhx7117 on 22/06/17.
  */
 @Repository
 public class GameRepository {
-    private final Map<String, Engine> id2Game = new HashMap<>();
+    private static final Logger LOGGER = LoggerFactory.getLogger(GameRepository.class);
+
+    private static final long SNAPSHOT_TIMEOUT = 5000;
+
+    /**
+     * Orders game ids by creation: they are time-ordered numbers in base 36 (see {@link GameIdGenerator})
+     */
+    private static final Comparator<String> BY_CREATION = Comparator.comparingInt(String::length).thenComparing(Comparator.naturalOrder());
+
+    private final ConcurrentMap<String, Engine> id2Game = new ConcurrentHashMap<>();
+
+    private final ConcurrentNavigableMap<String, Engine> recentGames = new ConcurrentSkipListMap<>(BY_CREATION);
+
+    private final ConcurrentMap<String, Set<String>> owner2GameIds = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, Set<String>> player2GameIds = new ConcurrentHashMap<>();
 
     @Value("${trio.game.inactivity_timeout}")
     private long inactivityTimeout;
 
     @Autowired
-    private SimpMessagingTemplate messagingTemplate;
+    private Broadcaster broadcaster;
+
+    @Autowired
+    private GameIdGenerator idGenerator;
+
+    @Autowired
+    private GameSnapshotStore snapshotStore;
+
+    @Autowired
+    private GameJournal journal;
 
     private final Shuffler shuffler = new Shuffler();
 
+    private final TimeoutScheduler scheduler = new TimeoutScheduler();
+
+    /**
+     * Shared executor draining the games mailboxes
+     */
+    private final ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), new ThreadFactoryBuilder().setNameFormat("trio-games-%d").setDaemon(true).build());
+
+    private final EngineListener engineListener = new EngineListener();
+
     public Engine createNew(User user) {
-        String id = Long.toHexString(System.nanoTime());
-        Engine engine = new Engine(id, user, shuffler, messagingTemplate, inactivityTimeout, new EngineInactivityListener());
-        id2Game.put(id, engine);
+        String id = idGenerator.next();
+        Engine engine = new Engine(id, user, shuffler, broadcaster, scheduler, executor, inactivityTimeout, engineListener);
+        journal.created(engine.getGame());
+        add(engine);
         return engine;
     }
 
+    private void add(Engine engine) {
+        String id = engine.getGame().getId();
+        id2Game.put(id, engine);
+        recentGames.put(id, engine);
+        index(owner2GameIds, engine.getGame().getOwnerId(), id);
+        for (String playerId : engine.getGame().getPlayers().keySet()) {
+            index(player2GameIds, playerId, id);
+        }
+    }
+
     public Iterable<Engine> findAll() {
         return id2Game.values();
     }
@@ -47,13 +110,185 @@ public class GameRepository {
         return findById(id).isPresent();
     }
 
-    private class EngineInactivityListener implements Engine.InactivityTimeoutListener {
+    /**
+     * Finds the most recent games created before the given one, but the excluded ones: walks the creation index from
+     * the newest game (keyset pagination)
+     *
+     * @param before id of the last game of the previous page ({@code null} for the first page)
+     */
+    public List<Engine> findRecent(String before, int limit, Set<String> excludedIds) {
+        List<Engine> engines = new ArrayList<>(limit);
+        NavigableMap<String, Engine> games = before == null ? recentGames : recentGames.headMap(before, false);
+        for (Map.Entry<String, Engine> entry : games.descendingMap().entrySet()) {
+            if (engines.size() >= limit) {
+                break;
+            }
+            if (!excludedIds.contains(entry.getKey())) {
+                engines.add(entry.getValue());
+            }
+        }
+        return engines;
+    }
+
+    /**
+     * Finds the games owned by the given user
+     */
+    public List<Engine> findByOwner(String userId) {
+        return findByIds(owner2GameIds.get(userId));
+    }
+
+    /**
+     * Finds the games the given user is playing (including the ones he owns)
+     */
+    public List<Engine> findByPlayer(String userId) {
+        return findByIds(player2GameIds.get(userId));
+    }
+
+    /**
+     * Finds the ids of the games owned by the given user
+     */
+    public Set<String> findIdsByOwner(String userId) {
+        Set<String> ids = owner2GameIds.get(userId);
+        return ids == null ? Collections.emptySet() : Collections.unmodifiableSet(ids);
+    }
+
+    /**
+     * Finds the ids of the games the given user is playing (including the ones he owns)
+     */
+    public Set<String> findIdsByPlayer(String userId) {
+        Set<String> ids = player2GameIds.get(userId);
+        return ids == null ? Collections.emptySet() : Collections.unmodifiableSet(ids);
+    }
+
+    private List<Engine> findByIds(Set<String> ids) {
+        if (ids == null) {
+            return Collections.emptyList();
+        }
+        List<Engine> engines = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            Engine engine = id2Game.get(id);
+            if (engine != null) {
+                engines.add(engine);
+            }
+        }
+        return engines;
+    }
+
+    private static void index(ConcurrentMap<String, Set<String>> index, String userId, String gameId) {
+        index.compute(userId, (key, ids) -> {
+            if (ids == null) {
+                ids = ConcurrentHashMap.newKeySet();
+            }
+            ids.add(gameId);
+            return ids;
+        });
+    }
+
+    private static void unindex(ConcurrentMap<String, Set<String>> index, String userId, String gameId) {
+        index.computeIfPresent(userId, (key, ids) -> {
+            ids.remove(gameId);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    private class EngineListener implements Engine.Listener {
         @Override
         public void onInactivityTimeout(Engine engine) {
-            id2Game.remove(engine.getGame().getId());
+            String id = engine.getGame().getId();
+            id2Game.remove(id);
+            recentGames.remove(id);
+            unindex(owner2GameIds, engine.getGame().getOwnerId(), id);
+            for (String playerId : engine.getGame().getPlayers().keySet()) {
+                unindex(player2GameIds, playerId, id);
+            }
+            engine.shutdown();
+            journal.close(id);
+        }
+
+        @Override
+        public void onPlayerJoined(Engine engine, Player player) {
+            index(player2GameIds, player.getId(), engine.getGame().getId());
+        }
+
+        @Override
+        public void onPlayerLeft(Engine engine, Player player) {
+            unindex(player2GameIds, player.getId(), engine.getGame().getId());
+        }
+
+        @Override
+        public void onAction(Engine engine, User user, Action action) {
+            journal.action(engine.getGame().getId(), user, action);
+        }
+
+        @Override
+        public void onEvent(Engine engine, Event event) {
+            journal.event(engine.getGame().getId(), event);
+        }
+
+        @Override
+        public void onShuffled(Engine engine, long seed) {
+            journal.shuffled(engine.getGame().getId(), seed);
         }
     }
 
+    // ================================================================================================================
+    // === snapshots
+    // ================================================================================================================
+    /**
+     * Restores the games saved by the previous run, and schedules the periodic snapshots
+     */
+    @PostConstruct
+    public void restore() {
+        for (byte[] bytes : snapshotStore.load()) {
+            try {
+                EngineSnapshot snapshot = EngineSnapshot.decode(bytes);
+                add(Engine.restore(snapshot, shuffler, broadcaster, scheduler, executor, inactivityTimeout, engineListener));
+            } catch (IOException | RuntimeException e) {
+                LOGGER.error("could not restore a game snapshot: dropped", e);
+            }
+        }
+        if (!id2Game.isEmpty()) {
+            LOGGER.info("restored {} games", id2Game.size());
+        }
+        snapshotStore.schedule(this::snapshot);
+    }
 
+    /**
+     * Saves a snapshot of all live games
+     * <p>
+     * Each game is snapshotted from its own mailbox: the games go on being played meanwhile
+     */
+    public void snapshot() {
+        if (!snapshotStore.isEnabled()) {
+            return;
+        }
+        List<CompletableFuture<byte[]>> futures = new ArrayList<>(id2Game.size());
+        id2Game.values().forEach(engine -> futures.add(engine.snapshot()));
+        List<byte[]> snapshots = new ArrayList<>(futures.size());
+        long deadline = System.currentTimeMillis() + SNAPSHOT_TIMEOUT;
+        for (CompletableFuture<byte[]> future : futures) {
+            try {
+                snapshots.add(future.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException | TimeoutException e) {
+                LOGGER.error("could not snapshot a game: skipped", e);
+            }
+        }
+        try {
+            snapshotStore.save(snapshots);
+        } catch (IOException e) {
+            LOGGER.error("could not save the game snapshots", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        snapshot();
+        // --- drops all the pending timeouts (engines are only touched from their mailbox)
+        scheduler.shutdown();
+        executor.shutdown();
+    }
 
 }
@@ -0,0 +1,132 @@
+package com.orange.oswe.demo.trio.repository;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Memory-mapped file holding the snapshots of the live games
+ * <p>
+ * File layout: {@code magic(4), count(4), crc32(8) of the records, { length(4), snapshot }*}
+ * <p>
+ * Each save writes a temporary file, forces it to disk and atomically renames it over the previous one: a crash while
+ * saving leaves the previous snapshots intact. Disabled when {@code trio.snapshot.file} is empty.
+ */
+@Component
+public class GameSnapshotStore {
+    private static final Logger LOGGER = LoggerFactory.getLogger(GameSnapshotStore.class);
+
+    private static final int MAGIC = 0x54524953; // "TRIS"
+    private static final int HEADER_SIZE = 16;
+
+    private final Path file;
+    private final long interval;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setNameFormat("trio-snapshots").setDaemon(true).build());
+
+    public GameSnapshotStore(@Value("${trio.snapshot.file:}") String file, @Value("${trio.snapshot.interval:30000}") long interval) {
+        this.file = file == null || file.isEmpty() ? null : Paths.get(file);
+        this.interval = interval;
+    }
+
+    public boolean isEnabled() {
+        return file != null;
+    }
+
+    /**
+     * Runs the given snapshot task periodically (every {@code trio.snapshot.interval} ms)
+     */
+    public void schedule(Runnable task) {
+        if (isEnabled() && interval > 0) {
+            executor.scheduleWithFixedDelay(task, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Replaces the stored snapshots
+     */
+    public synchronized void save(List<byte[]> snapshots) throws IOException {
+        if (!isEnabled()) {
+            return;
+        }
+        long size = HEADER_SIZE;
+        CRC32 crc = new CRC32();
+        for (byte[] snapshot : snapshots) {
+            size += 4 + snapshot.length;
+            crc.update(snapshot);
+        }
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path tmp = parent.resolve(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.putInt(MAGIC).putInt(snapshots.size()).putLong(crc.getValue());
+            for (byte[] snapshot : snapshots) {
+                buffer.putInt(snapshot.length).put(snapshot);
+            }
+            buffer.force();
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        LOGGER.debug("saved {} game snapshots ({} bytes) to {}", snapshots.size(), size, file);
+    }
+
+    /**
+     * Loads the stored snapshots
+     *
+     * @return the snapshots, or an empty list if there are none or if the file is corrupted
+     */
+    public List<byte[]> load() {
+        if (!isEnabled() || !Files.exists(file)) {
+            return Collections.emptyList();
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC) {
+                LOGGER.error("invalid game snapshots file {}: ignored", file);
+                return Collections.emptyList();
+            }
+            int count = buffer.getInt();
+            long expectedCrc = buffer.getLong();
+            CRC32 crc = new CRC32();
+            List<byte[]> snapshots = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                byte[] snapshot = new byte[buffer.getInt()];
+                buffer.get(snapshot);
+                crc.update(snapshot);
+                snapshots.add(snapshot);
+            }
+            if (crc.getValue() != expectedCrc) {
+                LOGGER.error("corrupted game snapshots file {}: ignored", file);
+                return Collections.emptyList();
+            }
+            return snapshots;
+        } catch (IOException | RuntimeException e) {
+            LOGGER.error("could not read game snapshots file {}: ignored", file, e);
+            return Collections.emptyList();
+        }
+    }
+}
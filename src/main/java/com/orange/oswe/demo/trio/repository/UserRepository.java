@@ -8,9 +8,13 @@
 package com.orange.oswe.demo.trio.repository;
 
 import com.orange.oswe.demo.trio.domain.User;
+import com.orange.oswe.demo.trio.domain.UserSummary;
 import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.repository.CrudRepository;
 
+import java.util.List;
+
 /**
  * Repository class for @{User} domain objects
  */
@@ -25,4 +29,25 @@ public interface UserRepository extends CrudRepository<User, Long> {
 	 *		 empty <code>Collection</code> if none found)
 	 */
 	User findByUsername(String username) throws DataAccessException;
+
+	/*
+	 * Keyset pagination on the username (backed by the UK_username index): pages are selected by the last username of
+	 * the previous page, so that each page costs the same whatever its rank; no count query either.
+	 * The Pageable shall be the first page, sorted on username.
+	 */
+
+	/**
+	 * Retrieve the first page of @{User} summaries.
+	 */
+	List<UserSummary> findAllBy(Pageable page) throws DataAccessException;
+
+	/**
+	 * Retrieve the next page of @{User} summaries, in ascending username order.
+	 */
+	List<UserSummary> findByUsernameGreaterThan(String username, Pageable page) throws DataAccessException;
+
+	/**
+	 * Retrieve the next page of @{User} summaries, in descending username order.
+	 */
+	List<UserSummary> findByUsernameLessThan(String username, Pageable page) throws DataAccessException;
 }
@@ -1,7 +1,6 @@
 package com.orange.oswe.demo.trio.service;
 
 import com.orange.oswe.demo.trio.domain.User;
-import com.orange.oswe.demo.trio.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Scope;
 import org.springframework.context.annotation.ScopedProxyMode;
@@ -18,13 +17,13 @@ public class CurrentUserService {
     private User user;
 
     @Autowired
-    private UserRepository userRepository;
+    private UserCacheService userCache;
 
     public User getCurrentUser() {
         if (user == null) {
             Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
             if (authentication != null && authentication.isAuthenticated()) {
-                user = userRepository.findByUsername(authentication.getName());
+                user = userCache.findByUsername(authentication.getName());
             }
         }
         return user;
@@ -0,0 +1,244 @@
+/*
+ * Copyright (C) 2017 Orange
+ *
+ * This software is distributed under the terms and conditions of the 'Apache-2.0'
+ * license which can be found in the file 'LICENSE.txt' in this package distribution
+ * or at 'http://www.apache.org/licenses/LICENSE-2.0'.
+ */
+package com.orange.oswe.demo.trio.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.orange.oswe.demo.trio.game.Broadcaster;
+import com.orange.oswe.demo.trio.game.events.BinaryEventCodec;
+import com.orange.oswe.demo.trio.game.events.BinaryEventMessageConverter;
+import com.orange.oswe.demo.trio.game.events.Event;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Service;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Broadcasts game events to the STOMP subscribers of {@code /down/games/{id}} (JSON) and {@code /down/games/{id}/bin}
+ * (binary), or the destinations configured for the external broker relay (see {@code trio.broker.*})
+ * <p>
+ * Each event is encoded once per format, into a per-thread reusable buffer, and the resulting byte array is sent as-is
+ * to the broker, that hands the same payload to every subscribed session. With the in-memory broker, formats with no
+ * subscriber are not encoded at all (with the broker relay, subscribers may be connected to other nodes).
+ * <p>
+ * Encoding and fan-out times are exposed as actuator metrics ({@code trio.broadcast.*}).
+ */
+@Service
+public class EventBroadcastService implements Broadcaster, PublicMetrics {
+
+    private static final Logger logger = LoggerFactory.getLogger(EventBroadcastService.class);
+
+    @Value("${trio.broker.destination_prefix:/down/games/}")
+    private String destinationPrefix;
+
+    @Value("${trio.broker.binary_suffix:/bin}")
+    private String binarySuffix;
+
+    @Value("${trio.broker.relay.enabled:false}")
+    private boolean relayEnabled;
+
+    private static final MimeType JSON = MimeTypeUtils.APPLICATION_JSON;
+
+    /**
+     * Reusable encoding buffer
+     */
+    private static final ThreadLocal<Buffer> BUFFER = ThreadLocal.withInitial(Buffer::new);
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    /**
+     * Number of subscriptions by destination
+     */
+    private final ConcurrentMap<String, AtomicInteger> subscriptions = new ConcurrentHashMap<>();
+
+    /**
+     * Destination by subscription id, by session id (to handle unsubscribe and disconnect)
+     */
+    private final ConcurrentMap<String, Map<String, String>> session2Subscriptions = new ConcurrentHashMap<>();
+
+    private final LongAdder events = new LongAdder();
+    private final LongAdder encoded = new LongAdder();
+    private final LongAdder encodedBytes = new LongAdder();
+    private final LongAdder encodeNanos = new LongAdder();
+    private final LongAdder fanoutNanos = new LongAdder();
+
+    /**
+     * Destination of the given game events, in JSON
+     */
+    public String destination(String gameId) {
+        return destinationPrefix + gameId;
+    }
+
+    /**
+     * Destination of the given game events, in binary format
+     */
+    public String binaryDestination(String gameId) {
+        return destinationPrefix + gameId + binarySuffix;
+    }
+
+    @Override
+    public void broadcast(String gameId, Event event) {
+        events.increment();
+        String destination = destination(gameId);
+        if (hasSubscribers(destination)) {
+            send(destination, JSON, encodeJson(event));
+        }
+        String binaryDestination = binaryDestination(gameId);
+        if (hasSubscribers(binaryDestination)) {
+            send(binaryDestination, BinaryEventMessageConverter.MIME_TYPE, encodeBinary(event));
+        }
+    }
+
+    private boolean hasSubscribers(String destination) {
+        if (relayEnabled) {
+            return true;
+        }
+        AtomicInteger count = subscriptions.get(destination);
+        return count != null && count.get() > 0;
+    }
+
+    byte[] encodeJson(Event event) {
+        long start = System.nanoTime();
+        Buffer buffer = BUFFER.get();
+        buffer.reset();
+        try {
+            objectMapper.writeValue(buffer, event);
+        } catch (IOException e) {
+            // --- can't happen: in-memory buffer, and events are serializable
+            throw new IllegalStateException("Failed serializing event " + event, e);
+        }
+        byte[] payload = buffer.toByteArray();
+        encoded(start, payload);
+        return payload;
+    }
+
+    byte[] encodeBinary(Event event) {
+        long start = System.nanoTime();
+        byte[] payload = Base64.getEncoder().encode(BinaryEventCodec.encode(event));
+        encoded(start, payload);
+        return payload;
+    }
+
+    private void encoded(long start, byte[] payload) {
+        encodeNanos.add(System.nanoTime() - start);
+        encoded.increment();
+        encodedBytes.add(payload.length);
+    }
+
+    private void send(String destination, MimeType contentType, byte[] payload) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        headers.setContentType(contentType);
+        headers.setLeaveMutable(true);
+        Message<byte[]> message = MessageBuilder.createMessage(payload, headers.getMessageHeaders());
+        long start = System.nanoTime();
+        // --- no conversion: the payload is already encoded
+        messagingTemplate.send(destination, message);
+        fanoutNanos.add(System.nanoTime() - start);
+    }
+
+    // =====================================================
+    // === Subscriptions tracking
+    // =====================================================
+    @EventListener
+    void onSubscribe(SessionSubscribeEvent event) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        String destination = headers.getDestination();
+        if (destination == null || !destination.startsWith(destinationPrefix)) {
+            return;
+        }
+        session2Subscriptions.computeIfAbsent(headers.getSessionId(), id -> new ConcurrentHashMap<>()).put(headers.getSubscriptionId(), destination);
+        subscriptions.compute(destination, (d, count) -> {
+            if (count == null) {
+                count = new AtomicInteger();
+            }
+            count.incrementAndGet();
+            return count;
+        });
+        logger.debug("session {} subscribed to {}", headers.getSessionId(), destination);
+    }
+
+    @EventListener
+    void onUnsubscribe(SessionUnsubscribeEvent event) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        Map<String, String> sessionSubscriptions = session2Subscriptions.get(headers.getSessionId());
+        if (sessionSubscriptions != null) {
+            unsubscribe(sessionSubscriptions.remove(headers.getSubscriptionId()));
+        }
+    }
+
+    @EventListener
+    void onDisconnect(SessionDisconnectEvent event) {
+        Map<String, String> sessionSubscriptions = session2Subscriptions.remove(event.getSessionId());
+        if (sessionSubscriptions != null) {
+            sessionSubscriptions.values().forEach(this::unsubscribe);
+        }
+    }
+
+    private void unsubscribe(String destination) {
+        if (destination == null) {
+            return;
+        }
+        // --- drop the counter when it reaches 0 (games ids are never reused)
+        subscriptions.computeIfPresent(destination, (d, count) -> count.decrementAndGet() <= 0 ? null : count);
+    }
+
+    // =====================================================
+    // === Metrics
+    // =====================================================
+    @Override
+    public Collection<Metric<?>> metrics() {
+        List<Metric<?>> metrics = new ArrayList<>();
+        long nbEvents = events.sum();
+        long nbEncoded = encoded.sum();
+        metrics.add(new Metric<>("trio.broadcast.events", nbEvents));
+        metrics.add(new Metric<>("trio.broadcast.encoded", nbEncoded));
+        metrics.add(new Metric<>("trio.broadcast.encoded.bytes", encodedBytes.sum()));
+        metrics.add(new Metric<>("trio.broadcast.encode.nanos.avg", nbEncoded == 0 ? 0 : encodeNanos.sum() / nbEncoded));
+        metrics.add(new Metric<>("trio.broadcast.fanout.nanos.avg", nbEncoded == 0 ? 0 : fanoutNanos.sum() / nbEncoded));
+        metrics.add(new Metric<>("trio.broadcast.subscriptions", subscriptions.values().stream().mapToInt(AtomicInteger::get).sum()));
+        return metrics;
+    }
+
+    /**
+     * Byte array output stream that can be reused without reallocating
+     */
+    private static class Buffer extends ByteArrayOutputStream {
+        Buffer() {
+            super(512);
+        }
+    }
+}
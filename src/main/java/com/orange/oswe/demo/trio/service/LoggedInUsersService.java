@@ -7,8 +7,6 @@
  */
 package com.orange.oswe.demo.trio.service;
 
-import com.google.common.collect.Multimap;
-import com.google.common.collect.TreeMultimap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.event.EventListener;
@@ -22,9 +20,15 @@ import org.springframework.security.web.authentication.WebAuthenticationDetails;
 import org.springframework.stereotype.Service;
 
 import javax.servlet.http.HttpSession;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * A service that keeps track of anonymous and authenticated sessions
+ * <p>
+ * Thread-safe: session and authentication events are received concurrently. Session ids are held in a concurrent set
+ * per user, and the totals in {@link LongAdder counters} updated along, so that counts are O(1).
  */
 @Service("usersService")
 public class LoggedInUsersService {
@@ -33,7 +37,45 @@ public class LoggedInUsersService {
 
     private static final String ANONYMOUS = "_anonymous_";
 
-    private final Multimap<String, String> user2SessionIds = TreeMultimap.create();
+    private final ConcurrentHashMap<String, Set<String>> user2SessionIds = new ConcurrentHashMap<>();
+
+    private final LongAdder allSessions = new LongAdder();
+
+    private final LongAdder anonymousSessions = new LongAdder();
+
+    /**
+     * Adds the session to the user (atomically with respect to the removal of its last session)
+     */
+    private void add(String userName, String sessionId) {
+        user2SessionIds.compute(userName, (user, sessionIds) -> {
+            if (sessionIds == null) {
+                sessionIds = ConcurrentHashMap.newKeySet();
+            }
+            if (sessionIds.add(sessionId)) {
+                count(user, 1);
+            }
+            return sessionIds;
+        });
+    }
+
+    /**
+     * Removes the session from the user, and the user once it has no more sessions
+     */
+    private void remove(String userName, String sessionId) {
+        user2SessionIds.computeIfPresent(userName, (user, sessionIds) -> {
+            if (sessionIds.remove(sessionId)) {
+                count(user, -1);
+            }
+            return sessionIds.isEmpty() ? null : sessionIds;
+        });
+    }
+
+    private void count(String userName, int delta) {
+        allSessions.add(delta);
+        if (ANONYMOUS.equals(userName)) {
+            anonymousSessions.add(delta);
+        }
+    }
 
     private String getUserName(Authentication authentication, String dflt) {
         if (authentication != null && authentication.isAuthenticated() && authentication.getPrincipal() instanceof User) {
@@ -62,9 +104,9 @@ public class LoggedInUsersService {
         logger.info("authentication successful: {} ({})", userName, sessionId);
         if(sessionId != null) {
             // remove session ID from anonymous
-            user2SessionIds.remove(ANONYMOUS, sessionId);
+            remove(ANONYMOUS, sessionId);
             // add session ID to user
-            user2SessionIds.put(userName, sessionId);
+            add(userName, sessionId);
         }
     }
 
@@ -76,9 +118,9 @@ public class LoggedInUsersService {
         String sessionId = getSessionId(authentication, session.getId());
         logger.info("session created: {} ({})", userName, sessionId);
         // remove session ID from anonymous
-        user2SessionIds.remove(ANONYMOUS, sessionId);
+        remove(ANONYMOUS, sessionId);
         // add session ID to user
-        user2SessionIds.put(userName, sessionId);
+        add(userName, sessionId);
     }
 
     @EventListener
@@ -89,7 +131,7 @@ public class LoggedInUsersService {
         String sessionId = getSessionId(authentication, session.getId());
         logger.info("session destroyed: {} ({})", userName, sessionId);
         // remove session ID from user
-        user2SessionIds.remove(userName, sessionId);
+        remove(userName, sessionId);
     }
 
     public boolean isConnected(String userName) {
@@ -97,14 +139,18 @@ public class LoggedInUsersService {
     }
 
     public int countConnectionsFor(String userName) {
-        return userName == null ? 0 : user2SessionIds.get(userName).size();
+        if (userName == null) {
+            return 0;
+        }
+        Set<String> sessionIds = user2SessionIds.get(userName);
+        return sessionIds == null ? 0 : sessionIds.size();
     }
 
     public int countAnonymousConnections() {
-        return countConnectionsFor(ANONYMOUS);
+        return anonymousSessions.intValue();
     }
 
     public int countAllConnections() {
-        return user2SessionIds.size();
+        return allSessions.intValue();
     }
 }
@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2017 Orange
+ *
+ * This software is distributed under the terms and conditions of the 'Apache-2.0'
+ * license which can be found in the file 'LICENSE.txt' in this package distribution
+ * or at 'http://www.apache.org/licenses/LICENSE-2.0'.
+ */
+package com.orange.oswe.demo.trio.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.orange.oswe.demo.trio.domain.User;
+import com.orange.oswe.demo.trio.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded, TTL-based cache of {@link User users} (with their authorities) by username, in front of
+ * {@link UserRepository#findByUsername(String)}
+ * <p>
+ * Also serves as the Spring Security {@link UserDetailsService} (login and remember-me), so that neither logins nor
+ * page renders cost a SQL query once the user is cached.
+ * <p>
+ * Unknown usernames are not cached: a user created on another node can log in here right away. Users modified on this
+ * node shall be {@link #invalidate(String) invalidated}; modifications made on other nodes are seen after the TTL.
+ */
+@Service
+public class UserCacheService implements UserDetailsService, PublicMetrics {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserCacheService.class);
+
+    private final UserRepository userRepository;
+
+    private final Cache<String, User> users;
+
+    @Autowired
+    public UserCacheService(UserRepository userRepository,
+                            @Value("${trio.user_cache.max_size:10000}") long maxSize,
+                            @Value("${trio.user_cache.ttl:300}") long ttlSeconds) {
+        this.userRepository = userRepository;
+        this.users = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Returns the user with the given username (from the cache if possible), or {@code null} if none
+     */
+    public User findByUsername(String username) {
+        if (username == null) {
+            return null;
+        }
+        User user = users.getIfPresent(username);
+        if (user == null) {
+            user = userRepository.findByUsername(username);
+            if (user != null) {
+                users.put(username, user);
+            }
+        }
+        return user;
+    }
+
+    /**
+     * Evicts the given user: shall be called whenever a user (or its authorities) is modified
+     */
+    public void invalidate(String username) {
+        logger.debug("invalidate user {}", username);
+        users.invalidate(username);
+    }
+
+    public void invalidateAll() {
+        users.invalidateAll();
+    }
+
+    /**
+     * Returns a fresh {@link UserDetails} on each call: Spring Security erases the credentials of the authenticated
+     * principal, which shall not affect the cached user
+     */
+    @Override
+    public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        User user = findByUsername(username);
+        if (user == null) {
+            throw new UsernameNotFoundException("Username " + username + " not found");
+        }
+        // --- same rules as the former JdbcUserDetailsManager
+        if (user.getAuthorities() == null || user.getAuthorities().isEmpty()) {
+            throw new UsernameNotFoundException("User " + username + " has no GrantedAuthority");
+        }
+        List<GrantedAuthority> authorities = new ArrayList<>(user.getAuthorities());
+        return new org.springframework.security.core.userdetails.User(user.getUsername(), user.getPassword(), user.isEnabled(), true, true, true, authorities);
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        CacheStats stats = users.stats();
+        List<Metric<?>> metrics = new ArrayList<>();
+        metrics.add(new Metric<>("trio.user_cache.size", users.size()));
+        metrics.add(new Metric<>("trio.user_cache.hits", stats.hitCount()));
+        metrics.add(new Metric<>("trio.user_cache.misses", stats.missCount()));
+        metrics.add(new Metric<>("trio.user_cache.evictions", stats.evictionCount()));
+        return metrics;
+    }
+}
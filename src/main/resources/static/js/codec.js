@@ -0,0 +1,155 @@
+/**
+ * Decoder for the binary (base64) wire format of game events, and encoder of game actions
+ * Must be kept in sync with BinaryEventCodec.java
+ */
+var Codec = (function(){
+
+    var EVENT_TYPES = ["game_state_changed", "player_joined", "player_left", "player_selects", "player_declares", "select_timeout", "select_giveup", "select_nolonger", "select_success", "select_failure", "cards_moved", "cards_drawn"];
+    var GAME_STATES = ["preparing", "playing", "over"];
+    var DRAW_REASONS = ["refill", "extra", "replaced"];
+    var ATTRIBUTES = ["color", "shape", "fill", "number"];
+    var ACTION_TYPES = ["start_game", "restart_game", "declare_trio", "select_trio", "player_join", "player_leave", "cancel_trio"];
+
+    function Reader(bytes) {
+        this.bytes = bytes;
+        this.pos = 0;
+    }
+
+    Reader.prototype.read = function() {
+        if(this.pos >= this.bytes.length) {
+            throw new Error("Truncated message");
+        }
+        return this.bytes[this.pos++];
+    };
+
+    Reader.prototype.varint = function() {
+        // no bitwise ops: values may exceed 32 bits (sequence numbers)
+        var value = 0, factor = 1, b;
+        do {
+            b = this.read();
+            value += (b & 0x7F) * factor;
+            factor *= 128;
+        } while(b & 0x80);
+        return value;
+    };
+
+    Reader.prototype.string = function() {
+        var length = this.varint();
+        var utf8 = "";
+        for(var i = 0; i < length; i++) {
+            utf8 += "%" + ("0" + this.read().toString(16)).slice(-2);
+        }
+        return decodeURIComponent(utf8);
+    };
+
+    Reader.prototype.bytesArray = function(length) {
+        var values = [];
+        for(var i = 0; i < length; i++) {
+            values.push(this.read());
+        }
+        return values;
+    };
+
+    Reader.prototype.player = function() {
+        return {id: this.string(), name: this.string()};
+    };
+
+    Reader.prototype.score = function() {
+        var value = this.varint();
+        if(value == 0) {
+            return null;
+        }
+        var zigzag = value - 1;
+        return zigzag % 2 == 0 ? zigzag / 2 : -(zigzag + 1) / 2;
+    };
+
+    Reader.prototype.queueDelta = function() {
+        var polled = this.varint();
+        var count = this.varint();
+        var pushed = [];
+        for(var i = 0; i < count; i++) {
+            pushed.push(this.string());
+        }
+        return {polled: polled, pushed: pushed};
+    };
+
+    function fromBase64(base64) {
+        var binary = atob(base64);
+        var bytes = new Uint8Array(binary.length);
+        for(var i = 0; i < binary.length; i++) {
+            bytes[i] = binary.charCodeAt(i);
+        }
+        return bytes;
+    }
+
+    /**
+     * Decodes a base64 binary event into the same object as its JSON form
+     */
+    function decodeEvent(base64) {
+        var r = new Reader(fromBase64(base64));
+        var event = {type: EVENT_TYPES[r.varint()], seq: r.varint()};
+        switch(event.type) {
+            case "game_state_changed":
+                event.state = GAME_STATES[r.varint()];
+                break;
+            case "player_joined":
+            case "player_left":
+                event.player = r.player();
+                break;
+            case "player_selects":
+            case "player_declares":
+            case "select_timeout":
+            case "select_giveup":
+            case "select_nolonger":
+                event.player = r.player();
+                event.newScore = r.score();
+                event.queueDelta = r.queueDelta();
+                break;
+            case "select_failure":
+                event.player = r.player();
+                var mask = r.varint();
+                event.faulty = ATTRIBUTES.filter(function(attr, index) {return (mask & (1 << index)) != 0;});
+                event.newScore = r.score();
+                event.queueDelta = r.queueDelta();
+                break;
+            case "select_success":
+                event.player = r.player();
+                event.positions = r.bytesArray(r.varint());
+                event.newScore = r.score();
+                event.queueDelta = r.queueDelta();
+                break;
+            case "cards_drawn":
+                event.reason = DRAW_REASONS[r.varint()];
+                event.nbCardsBeforeDraw = r.varint();
+                var count = r.varint();
+                event.cards = r.bytesArray(count).map(function(value) {return {value: value};});
+                event.positions = r.bytesArray(count);
+                break;
+            case "cards_moved":
+                var count = r.varint();
+                event.from = r.bytesArray(count);
+                event.to = r.bytesArray(count);
+                break;
+        }
+        return event;
+    }
+
+    /**
+     * Encodes an action into base64 binary (type, count and positions all fit in single-byte varints)
+     */
+    function encodeAction(action) {
+        var selection = action.selection || [];
+        var binary = String.fromCharCode(ACTION_TYPES.indexOf(action.type), selection.length);
+        selection.forEach(function(pos) {
+            binary += String.fromCharCode(pos);
+        });
+        return btoa(binary);
+    }
+
+    return {
+        CONTENT_TYPE: "application/x-trio+base64",
+        decodeEvent: decodeEvent,
+        encodeAction: encodeAction
+    };
+
+})();
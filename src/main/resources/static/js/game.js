@@ -2,8 +2,33 @@ var stompClient = null;
 var csrf = null;
 var userId = null;
 var gameId = null;
+var eventsDestination = null;
+var binaryEventsDestination = null;
+var errorsDestination = null;
+// whether actions can be sent over the websocket (else they are posted to the REST endpoint)
+var connected = false;
 var game = null;
 var clockId = null;
+/**
+ * Sequence number of the last applied event
+ */
+var lastSeq = 0;
+/**
+ * Whether a game snapshot is being (re)loaded: events are queued meanwhile
+ */
+var resyncing = true;
+/**
+ * Events received while resyncing, replayed once the snapshot is applied (if newer)
+ */
+var pendingEvents = [];
+/**
+ * Delay before retrying a failed game reload (ms)
+ */
+var RELOAD_RETRY_DELAY = 2000;
+/**
+ * Events and STOMP actions wire format: "json" (default) or "binary" (opt in with the "wire=binary" query parameter)
+ */
+var wireFormat = /[?&]wire=binary(&|$)/.test(location.search) ? "binary" : "json";
 
 /**
  * Blocking queue for managing queued animations
@@ -62,7 +87,15 @@ function connect() {
     stompClient.debug = null;
     stompClient.connect({"X-CSRF-TOKEN": csrf}, function (frame) {
         console.log('... connected: ' + frame);
-        stompClient.subscribe('/down/games/'+gameId, handleEvent);
+        stompClient.subscribe(wireFormat == "binary" ? binaryEventsDestination : eventsDestination, handleEvent);
+        stompClient.subscribe(errorsDestination, function(msg) {
+            var error = JSON.parse(msg.body);
+            console.log("action failed: "+error.status+" / "+error.message, error);
+        });
+        connected = true;
+    }, function(error) {
+        console.log("websocket error: ", error);
+        connected = false;
     });
 }
 
@@ -70,6 +103,7 @@ function connect() {
  * Disconnects from the websocket
  */
 function disconnect() {
+    connected = false;
     if (stompClient != null) {
         stompClient.disconnect();
     }
@@ -82,8 +116,31 @@ function disconnect() {
  * @param msg message to handle
  */
 function handleEvent(msg) {
-    var event = JSON.parse(msg.body);
-    console.log("<<<", msg.body);
+    var event = wireFormat == "binary" ? Codec.decodeEvent(msg.body) : JSON.parse(msg.body);
+    console.log("<<<", event);
+    if(resyncing) {
+        // may be newer than the snapshot being loaded
+        pendingEvents.push(event);
+        return;
+    }
+    applyEvent(event);
+}
+
+/**
+ * Applies a game event, or resyncs if some were missed
+ * @param event event to apply
+ */
+function applyEvent(event) {
+    if(event.seq <= lastSeq) {
+        // already part of the game snapshot
+        return;
+    }
+    if(event.seq != lastSeq + 1) {
+        console.log("missed events "+(lastSeq + 1)+" to "+(event.seq - 1)+": resync");
+        resync();
+        return;
+    }
+    lastSeq = event.seq;
     switch(event.type) {
         case "game_state_changed":
             switch(event.state) {
@@ -270,7 +327,7 @@ function message(html) {
  */
 function handleGameEvent(event) {
     // update selection queue
-    game.queue = event.queue;
+    applyQueueDelta(event.queueDelta);
 
     // update score (if has changed)
     if(event.newScore != null) {
@@ -287,7 +344,7 @@ function handleGameEvent(event) {
     // update player selection status
     for(var playerId in game.players) {
         var playerElt = $("#player_"+playerId);
-        var selectionRank = event.queue.indexOf(playerId);
+        var selectionRank = game.queue.indexOf(playerId);
         if(selectionRank < 0) {
             // looking for trio: no style
             playerElt
@@ -307,6 +364,15 @@ function handleGameEvent(event) {
     }
 }
 
+/**
+ * Applies selection queue changes: players polled from the head, then pushed to the tail
+ * @param delta queue delta
+ */
+function applyQueueDelta(delta) {
+    game.queue.splice(0, delta.polled);
+    Array.prototype.push.apply(game.queue, delta.pushed);
+}
+
 /**
  * Blink selected cards
  * @param event trio selection event
@@ -380,11 +446,28 @@ function moveCards(event) {
 }
 
 /**
- * Sends an action to the game engine
+ * Sends an action to the game engine: over the websocket when connected, else to the REST endpoint
  * @param action player action
  */
 function send(action) {
     console.log(">>>", JSON.stringify(action));
+    if (connected) {
+        // errors are received on errorsDestination
+        if (wireFormat == "binary") {
+            stompClient.send("/up/games/"+gameId+"/actions", {"content-type": Codec.CONTENT_TYPE}, Codec.encodeAction(action));
+        } else {
+            stompClient.send("/up/games/"+gameId+"/actions", {}, JSON.stringify(action));
+        }
+    } else {
+        post(action);
+    }
+}
+
+/**
+ * Posts an action to the REST endpoint
+ * @param action player action
+ */
+function post(action) {
     $.ajax({
         method: "POST",
         url: "/games/"+gameId+"/actions",
@@ -401,12 +484,30 @@ function send(action) {
     });
 }
 
+/**
+ * Discards the local game state and reloads a snapshot (after missed events)
+ */
+function resync() {
+    if(resyncing) {
+        // already reloading
+        return;
+    }
+    resyncing = true;
+    animationQueue.queue = [];
+    animationQueue.running = false;
+    reloadGame();
+}
+
 /**
  * Complete game reload (JSON/REST)
  */
 function reloadGame(skipBoard) {
     $.get("/games/"+gameId, function( game, status ) {
         window.game = game;
+        // events up to the snapshot sequence number are included
+        lastSeq = Math.max(lastSeq, game.seq);
+        var replay = resyncing;
+        resyncing = false;
         console.log( "Game (status "+status+"):", game);
         // --- 1: action button
         switch(game.state) {
@@ -520,9 +621,36 @@ function reloadGame(skipBoard) {
 
         // --- 4: deck
         $("#deck").text(game.cardsLeft);
+
+        // --- 5: events received meanwhile, newer than the snapshot
+        if(replay) {
+            replayPendingEvents();
+        }
+    }).fail(function(xhr) {
+        console.log("game reload failed: "+xhr.status+", retrying in "+RELOAD_RETRY_DELAY+"ms");
+        // --- don't stay stuck ignoring events: queued ones are kept for the retry
+        resyncing = false;
+        setTimeout(resync, RELOAD_RETRY_DELAY);
     });
 }
 
+/**
+ * Replays (in order) the events queued during a resync that are not part of the snapshot
+ */
+function replayPendingEvents() {
+    var events = pendingEvents;
+    pendingEvents = [];
+    events.sort(function(e1, e2) {return e1.seq - e2.seq});
+    for(var i = 0; i < events.length; i++) {
+        applyEvent(events[i]);
+        if(resyncing) {
+            // another gap: keep this event and the next ones for the next snapshot
+            pendingEvents = events.slice(i).concat(pendingEvents);
+            return;
+        }
+    }
+}
+
 function sortPlayersByScore() {
     var $scores = $("#scores .players");
     $scores.find('tr').sort(function(row1, row2) {
@@ -560,6 +688,9 @@ $(function () {
     window.csrf = $("meta[name='_csrf']").attr("content");
     window.userId = $("meta[name='user_id']").attr("content");
     window.gameId = $("meta[name='game_id']").attr("content");
+    window.eventsDestination = $("meta[name='events_destination']").attr("content");
+    window.errorsDestination = $("meta[name='errors_destination']").attr("content");
+    window.binaryEventsDestination = $("meta[name='binary_events_destination']").attr("content");
 
     $("#action").click(actionClicked);
 
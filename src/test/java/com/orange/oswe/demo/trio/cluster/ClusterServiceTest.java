@@ -0,0 +1,199 @@
+package com.orange.oswe.demo.trio.cluster;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.orange.oswe.demo.trio.domain.User;
+import com.orange.oswe.demo.trio.game.Broadcaster;
+import com.orange.oswe.demo.trio.game.actions.Action;
+import com.orange.oswe.demo.trio.game.actions.GameNotFound;
+import com.orange.oswe.demo.trio.game.actions.Unauthorized;
+import com.orange.oswe.demo.trio.journal.GameJournal;
+import com.orange.oswe.demo.trio.repository.GameIdGenerator;
+import com.orange.oswe.demo.trio.repository.GameRepository;
+import com.orange.oswe.demo.trio.repository.GameSnapshotStore;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+/**
+ * Several in-JVM nodes, talking to each other on loopback
+ */
+public class ClusterServiceTest {
+    private static final String SECRET = "s3cr3t";
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private final List<Node> nodes = new ArrayList<>();
+
+    private final User alice = new User("alice", "Alice", null);
+    private final User bob = new User("bob", "Bob", null);
+
+    private static class Node {
+        final GameRepository repository;
+        final ClusterService cluster;
+
+        Node(GameRepository repository, ClusterService cluster) {
+            this.repository = repository;
+            this.cluster = cluster;
+        }
+    }
+
+    @After
+    public void tearDown() {
+        for (Node node : nodes) {
+            node.cluster.stop();
+            node.repository.shutdown();
+        }
+    }
+
+    private Node startNode(int id) throws Exception {
+        GameIdGenerator idGenerator = new GameIdGenerator(id);
+        GameRepository repository = new GameRepository();
+        ReflectionTestUtils.setField(repository, "inactivityTimeout", 60000L);
+        ReflectionTestUtils.setField(repository, "broadcaster", (Broadcaster) (gameId, event) -> {});
+        ReflectionTestUtils.setField(repository, "idGenerator", idGenerator);
+        ReflectionTestUtils.setField(repository, "snapshotStore", new GameSnapshotStore("", 0));
+        ReflectionTestUtils.setField(repository, "journal", new GameJournal("", 0));
+        ClusterService cluster = new ClusterService(repository, idGenerator, objectMapper, id + "@localhost:0", SECRET, 64, true);
+        cluster.start();
+        Node node = new Node(repository, cluster);
+        // --- join the existing nodes
+        for (Node other : nodes) {
+            other.cluster.addNode(node.cluster.getSelf().get());
+            node.cluster.addNode(other.cluster.getSelf().get());
+        }
+        nodes.add(node);
+        return node;
+    }
+
+    private static <T> T get(CompletableFuture<T> future) throws Exception {
+        return future.get(5, TimeUnit.SECONDS);
+    }
+
+    private List<String> createGames(Node node, int count) throws Exception {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ids.add(get(node.cluster.createGame(alice)).get("id").asText());
+        }
+        return ids;
+    }
+
+    private static Set<Integer> owners(List<String> ids) {
+        Set<Integer> owners = new HashSet<>();
+        ids.forEach(id -> owners.add(GameIdGenerator.nodeOf(id)));
+        return owners;
+    }
+
+    @Test
+    public void games_are_spread_and_reachable_from_any_node() throws Exception {
+        Node node0 = startNode(0);
+        startNode(1);
+        startNode(2);
+
+        List<String> ids = createGames(node0, 60);
+        assertThat(owners(ids)).containsOnly(0, 1, 2);
+
+        for (String id : ids) {
+            assertThat(nodes.get(GameIdGenerator.nodeOf(id)).repository.existsById(id)).isTrue();
+            for (Node node : nodes) {
+                JsonNode game = objectMapper.readTree(get(node.cluster.getGame(id)));
+                assertThat(game.get("id").asText()).isEqualTo(id);
+                assertThat(node.cluster.isLocal(id)).isEqualTo(node == nodes.get(GameIdGenerator.nodeOf(id)));
+            }
+        }
+    }
+
+    @Test
+    public void actions_are_forwarded_to_the_owner_node() throws Exception {
+        Node node0 = startNode(0);
+        Node node1 = startNode(1);
+
+        String remoteId = createGames(node0, 40).stream().filter(id -> GameIdGenerator.nodeOf(id) == 1).findFirst().get();
+        get(node0.cluster.submit(remoteId, bob, new Action(Action.Type.player_join)));
+
+        assertThat(node1.repository.findIdsByPlayer("bob")).containsExactly(remoteId);
+        JsonNode game = objectMapper.readTree(get(node0.cluster.getGame(remoteId)));
+        assertThat(game.get("players").has("bob")).isTrue();
+    }
+
+    @Test
+    public void errors_are_forwarded_from_the_owner_node() throws Exception {
+        Node node0 = startNode(0);
+        startNode(1);
+
+        String missing = new GameIdGenerator(1).next();
+        try {
+            get(node0.cluster.submit(missing, bob, new Action(Action.Type.player_join)));
+            fail("action on a missing game should fail");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause()).isInstanceOf(GameNotFound.class);
+        }
+
+        // --- unknown node, and not a game id
+        try {
+            get(node0.cluster.getGame(new GameIdGenerator(7).next()));
+            fail("game on an unknown node should not be found");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause()).isInstanceOf(GameNotFound.class);
+        }
+        try {
+            get(node0.cluster.getGame("not a game id"));
+            fail("invalid game id should not be found");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause()).isInstanceOf(GameNotFound.class);
+        }
+    }
+
+    @Test
+    public void requests_without_the_secret_are_rejected() throws Exception {
+        startNode(0);
+        Node node1 = startNode(1);
+
+        ClusterClient client = new ClusterClient("wrong", objectMapper);
+        try {
+            get(client.createGame(node1.cluster.getSelf().get(), alice));
+            fail("request with a wrong secret should be rejected");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause()).isInstanceOf(Unauthorized.class);
+        } finally {
+            client.shutdown();
+        }
+        assertThat(node1.repository.findAll()).isEmpty();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void cluster_should_not_start_without_the_broker_relay() throws Exception {
+        GameIdGenerator idGenerator = new GameIdGenerator(0);
+        new ClusterService(new GameRepository(), idGenerator, objectMapper, "0@localhost:0,1@localhost:0", SECRET, 64, false).start();
+    }
+
+    @Test
+    public void game_creation_is_rebalanced_when_a_node_joins() throws Exception {
+        Node node0 = startNode(0);
+        startNode(1);
+        List<String> before = createGames(node0, 40);
+        assertThat(owners(before)).containsOnly(0, 1);
+
+        Node node2 = startNode(2);
+        assertThat(node0.cluster.getNodeIds()).containsExactly(0, 1, 2);
+        List<String> after = createGames(node0, 60);
+        assertThat(owners(after)).contains(2);
+
+        // --- existing games stay where they are, and are reachable from the new node
+        for (String id : before) {
+            assertThat(nodes.get(GameIdGenerator.nodeOf(id)).repository.existsById(id)).isTrue();
+            assertThat(get(node2.cluster.getGame(id))).isNotNull();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.orange.oswe.demo.trio.cluster;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class HashRingTest {
+
+    @Test(expected = IllegalStateException.class)
+    public void empty_ring_has_no_owner() {
+        new HashRing(16).ownerOf("key");
+    }
+
+    @Test
+    public void keys_are_spread_over_nodes() {
+        HashRing ring = new HashRing(128);
+        ring.add(0);
+        ring.add(1);
+        ring.add(2);
+        int[] counts = new int[3];
+        for (int i = 0; i < 30000; i++) {
+            counts[ring.ownerOf("key" + i)]++;
+        }
+        for (int count : counts) {
+            assertThat(count).isBetween(7000, 13000);
+        }
+    }
+
+    @Test
+    public void joining_node_only_takes_keys_over() {
+        HashRing ring = new HashRing(128);
+        ring.add(0);
+        ring.add(1);
+        ring.add(2);
+        Map<String, Integer> before = new HashMap<>();
+        for (int i = 0; i < 10000; i++) {
+            before.put("key" + i, ring.ownerOf("key" + i));
+        }
+
+        ring.add(3);
+        int moved = 0;
+        for (Map.Entry<String, Integer> entry : before.entrySet()) {
+            int owner = ring.ownerOf(entry.getKey());
+            if (owner != entry.getValue()) {
+                assertThat(owner).isEqualTo(3);
+                moved++;
+            }
+        }
+        assertThat(moved).isBetween(1500, 3500);
+
+        ring.remove(3);
+        for (Map.Entry<String, Integer> entry : before.entrySet()) {
+            assertThat(ring.ownerOf(entry.getKey())).isEqualTo(entry.getValue());
+        }
+        assertThat(ring.nodes()).containsExactly(0, 1, 2);
+    }
+}
@@ -0,0 +1,66 @@
+package com.orange.oswe.demo.trio.config;
+
+import org.junit.Test;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BoundedPasswordEncoderTest {
+
+    @Test
+    public void hashing_should_be_delegated() {
+        try (BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(new BCryptPasswordEncoder(4), 2, 10)) {
+            String encoded = encoder.encode("secret");
+            assertThat(encoder.matches("secret", encoded)).isTrue();
+            assertThat(encoder.matches("wrong", encoded)).isFalse();
+        }
+    }
+
+    @Test(expected = AuthenticationServiceException.class)
+    public void hashing_beyond_capacity_should_be_rejected() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        PasswordEncoder blocking = new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                return rawPassword.toString();
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                started.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return true;
+            }
+        };
+        ExecutorService callers = Executors.newFixedThreadPool(3);
+        try (BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(blocking, 1, 1)) {
+            CompletableFuture.runAsync(() -> encoder.matches("a", "a"), callers);
+            started.await(10, TimeUnit.SECONDS);
+            // --- 1 running: of the 2 next ones, 1 is queued and 1 is rejected right away
+            CompletableFuture<Void> b = CompletableFuture.runAsync(() -> encoder.matches("b", "b"), callers);
+            CompletableFuture<Void> c = CompletableFuture.runAsync(() -> encoder.matches("c", "c"), callers);
+            try {
+                CompletableFuture.anyOf(b, c).get(10, TimeUnit.SECONDS);
+            } catch (ExecutionException e) {
+                throw (Exception) e.getCause();
+            } finally {
+                release.countDown();
+                callers.shutdown();
+            }
+        }
+    }
+}
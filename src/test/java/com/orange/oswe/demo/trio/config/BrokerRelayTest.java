@@ -0,0 +1,111 @@
+package com.orange.oswe.demo.trio.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.orange.oswe.demo.trio.game.events.Event;
+import com.orange.oswe.demo.trio.game.model.Game;
+import com.orange.oswe.demo.trio.service.EventBroadcastService;
+import org.apache.activemq.broker.BrokerService;
+import org.apache.activemq.broker.TransportConnector;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.*;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Game events relayed through an embedded (in-process) ActiveMQ broker
+ */
+public class BrokerRelayTest {
+
+    private BrokerService broker;
+    private StompBrokerRelayMessageHandler relay;
+    private Reactor2TcpStompClient client;
+    private ThreadPoolTaskScheduler clientScheduler;
+    private EventBroadcastService service;
+
+    @Before
+    public void setup() throws Exception {
+        // --- embedded broker
+        broker = new BrokerService();
+        broker.setPersistent(false);
+        broker.setUseJmx(false);
+        TransportConnector connector = broker.addConnector("stomp://localhost:0");
+        broker.start();
+        int port = connector.getConnectUri().getPort();
+
+        // --- relay, as configured by WebSocketConfig
+        ExecutorSubscribableChannel brokerChannel = new ExecutorSubscribableChannel();
+        relay = new StompBrokerRelayMessageHandler(new ExecutorSubscribableChannel(), new ExecutorSubscribableChannel(), brokerChannel, Collections.singletonList("/topic"));
+        relay.setRelayPort(port);
+        relay.start();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!relay.isBrokerAvailable() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertThat(relay.isBrokerAvailable()).isTrue();
+
+        client = new Reactor2TcpStompClient("localhost", port);
+        // --- required to track receipts
+        clientScheduler = new ThreadPoolTaskScheduler();
+        clientScheduler.afterPropertiesSet();
+        client.setTaskScheduler(clientScheduler);
+
+        service = new EventBroadcastService();
+        ReflectionTestUtils.setField(service, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(service, "messagingTemplate", new SimpMessagingTemplate(brokerChannel));
+        ReflectionTestUtils.setField(service, "destinationPrefix", "/topic/games.");
+        ReflectionTestUtils.setField(service, "binarySuffix", ".bin");
+        ReflectionTestUtils.setField(service, "relayEnabled", true);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        client.shutdown();
+        clientScheduler.shutdown();
+        relay.stop();
+        broker.stop();
+    }
+
+    @Test
+    public void events_reach_subscribers_connected_to_the_broker() throws Exception {
+        // --- subscriber, as if connected to another node
+        StompSession session = client.connect(new StompSessionHandlerAdapter() {}).get(5, TimeUnit.SECONDS);
+        session.setAutoReceipt(true);
+        BlockingQueue<String> received = new LinkedBlockingQueue<>();
+        CountDownLatch subscribed = new CountDownLatch(1);
+        StompSession.Subscription subscription = session.subscribe(service.destination("game1"), new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return byte[].class;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                received.add(new String((byte[]) payload, StandardCharsets.UTF_8));
+            }
+        });
+        subscription.addReceiptTask(subscribed::countDown);
+        assertThat(subscribed.await(5, TimeUnit.SECONDS)).isTrue();
+
+        Event event = Event.gameStateChanged(Game.State.over);
+        event.setSeq(3);
+        service.broadcast("game1", event);
+
+        String json = received.poll(5, TimeUnit.SECONDS);
+        assertThat(json).contains("\"state\":\"over\"").contains("\"seq\":3");
+        session.disconnect();
+    }
+}
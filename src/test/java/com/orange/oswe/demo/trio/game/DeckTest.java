@@ -0,0 +1,60 @@
+package com.orange.oswe.demo.trio.game;
+
+import com.orange.oswe.demo.trio.game.model.Card;
+import com.orange.oswe.demo.trio.game.model.Game;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DeckTest {
+
+    private static int[] drawAll(Deck deck) {
+        int[] values = new int[deck.cardsLeft()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = deck.draw();
+        }
+        return values;
+    }
+
+    @Test
+    public void shuffled_deck_should_hold_every_card_once() {
+        Deck deck = new Shuffler().shuffle();
+        assertThat(deck.cardsLeft()).isEqualTo(Game.TOTAL_NUMBER_OF_CARDS);
+
+        Set<Integer> values = new HashSet<>();
+        for (int value : drawAll(deck)) {
+            // --- valid card value
+            assertThat(Card.of(value)).isEqualTo(Card.of(value & 3, (value >> 2) & 3, (value >> 4) & 3, value >> 6));
+            values.add(value);
+        }
+        assertThat(values).hasSize(Game.TOTAL_NUMBER_OF_CARDS);
+        assertThat(deck.isEmpty()).isTrue();
+    }
+
+    @Test
+    public void same_seed_should_deal_the_same_deck() {
+        Shuffler shuffler = new Shuffler(() -> 42L);
+        Deck deck = shuffler.shuffle();
+
+        assertThat(deck.getSeed().getAsLong()).isEqualTo(42L);
+        assertThat(drawAll(deck)).containsExactly(drawAll(Deck.shuffled(42L)));
+        assertThat(drawAll(Deck.shuffled(42L))).isNotEqualTo(drawAll(Deck.shuffled(43L)));
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void draw_should_advance_the_cursor() {
+        Deck deck = Deck.of(Arrays.asList(Card.of(0), Card.of(170)));
+        assertThat(deck.getSeed().isPresent()).isFalse();
+        assertThat(deck.peek(1)).isEqualTo(170);
+        assertThat(deck.draw()).isEqualTo(0);
+        assertThat(deck.cardsLeft()).isEqualTo(1);
+        assertThat(deck.peek(0)).isEqualTo(170);
+        assertThat(deck.draw()).isEqualTo(170);
+        deck.draw();
+    }
+}
@@ -3,9 +3,12 @@ package com.orange.oswe.demo.trio.game;
 import com.orange.oswe.demo.trio.domain.User;
 import com.orange.oswe.demo.trio.game.actions.Action;
 import com.orange.oswe.demo.trio.game.actions.ActionException;
+import com.orange.oswe.demo.trio.game.actions.Forbidden;
 import com.orange.oswe.demo.trio.game.events.Event;
 import com.orange.oswe.demo.trio.game.model.Card;
 import com.orange.oswe.demo.trio.game.model.Game;
+import com.orange.oswe.demo.trio.game.model.GameView;
+import com.orange.oswe.demo.trio.game.model.Player;
 import lombok.extern.slf4j.Slf4j;
 import org.assertj.core.api.Assertions;
 import org.junit.Assert;
@@ -14,9 +17,10 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.*;
 import org.mockito.runners.MockitoJUnitRunner;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 @RunWith(MockitoJUnitRunner.class)
 @Slf4j
@@ -28,19 +32,39 @@ public class EngineTest {
     Shuffler shuffler;
 
     @Mock
-    SimpMessagingTemplate messagingTemplate;
+    Broadcaster broadcaster;
 
     @Mock
-    Timer timer;
+    TimeoutScheduler scheduler;
 
     @Mock
-    Engine.InactivityTimeoutListener inactivityTimeoutListener;
+    Engine.Listener listener;
 
     Engine engine;
 
     @Before
     public void setup() {
-        engine = new Engine(ID, CREATOR, shuffler, messagingTemplate, 2000, inactivityTimeoutListener);
+        engine = new Engine(ID, CREATOR, shuffler, broadcaster, scheduler, Runnable::run, 2000, listener);
+    }
+
+    @Test
+    public void player_join_and_leave_should_notify_listener() throws ActionException {
+        // GIVEN
+        User user = new User("user", "fullname", "password");
+
+        // WHEN
+        engine.handle(user, new Action(Action.Type.player_join));
+        engine.handle(user, new Action(Action.Type.player_leave));
+
+        // THEN
+        InOrder inOrder = Mockito.inOrder(listener);
+        inOrder.verify(listener).onPlayerJoined(Matchers.eq(engine), Matchers.argThat(new ArgumentMatcher<Player>() {
+            @Override
+            public boolean matches(Object player) {
+                return "user".equals(((Player) player).getId());
+            }
+        }));
+        inOrder.verify(listener).onPlayerLeft(Matchers.eq(engine), Matchers.any());
     }
 
     @Test
@@ -52,9 +76,9 @@ public class EngineTest {
         engine.handle(CREATOR, new Action(Action.Type.start_game));
 
         // THEN
-        InOrder inOrder = Mockito.inOrder(messagingTemplate);
-        inOrder.verify(messagingTemplate).convertAndSend("/down/games/" + ID, Event.gameStateChanged(Game.State.playing));
-        inOrder.verify(messagingTemplate).convertAndSend("/down/games/" + ID, Event.cardsDrawn(Event.DrawReason.refill, 81, Mockito.any(), Mockito.any()));
+        InOrder inOrder = Mockito.inOrder(broadcaster);
+        inOrder.verify(broadcaster).broadcast(ID, Event.gameStateChanged(Game.State.playing));
+        inOrder.verify(broadcaster).broadcast(ID, Event.cardsDrawn(Event.DrawReason.refill, 81, Mockito.any(), Mockito.any()));
     }
 
     @Test
@@ -66,10 +90,10 @@ public class EngineTest {
         engine.handle(CREATOR, new Action(Action.Type.start_game));
 
         // THEN
-        InOrder inOrder = Mockito.inOrder(messagingTemplate);
-        inOrder.verify(messagingTemplate).convertAndSend("/down/games/" + ID, Event.gameStateChanged(Game.State.playing));
+        InOrder inOrder = Mockito.inOrder(broadcaster);
+        inOrder.verify(broadcaster).broadcast(ID, Event.gameStateChanged(Game.State.playing));
         ArgumentCaptor<Event.CardsDrawnEvent> drawEventCaptor = ArgumentCaptor.forClass(Event.CardsDrawnEvent.class);
-        inOrder.verify(messagingTemplate, Mockito.times(4)).convertAndSend(Matchers.eq("/down/games/" + ID), drawEventCaptor.capture());
+        inOrder.verify(broadcaster, Mockito.times(4)).broadcast(Matchers.eq(ID), drawEventCaptor.capture());
         Assert.assertEquals(Event.DrawReason.refill, drawEventCaptor.getAllValues().get(0).getReason());
         Assert.assertEquals(Event.DrawReason.extra, drawEventCaptor.getAllValues().get(1).getReason());
         Assert.assertEquals(Event.DrawReason.replaced, drawEventCaptor.getAllValues().get(2).getReason());
@@ -79,9 +103,9 @@ public class EngineTest {
     @Test
     public void select_valid_trio() throws ActionException {
         // GIVEN
-        Queue<Card> deck = deckOf21WithTrioInFirst12();
-        Card[] drawnCards = (Card[])new ArrayList(deck).subList(0, 12).toArray(new Card[12]);
-        Mockito.when(shuffler.shuffle()).thenReturn(deck);
+        List<Card> cards = cardsOf21WithTrioInFirst12();
+        Card[] drawnCards = cards.subList(0, 12).toArray(new Card[12]);
+        Mockito.when(shuffler.shuffle()).thenReturn(Deck.of(cards));
 
         // WHEN
         engine.handle(CREATOR, new Action(Action.Type.start_game));
@@ -90,23 +114,23 @@ public class EngineTest {
         engine.handle(CREATOR, new Action(Action.Type.select_trio, selection));
 
         // THEN
-        InOrder inOrder = Mockito.inOrder(messagingTemplate);
+        InOrder inOrder = Mockito.inOrder(broadcaster);
         ArgumentCaptor<Event> eventCaptor = ArgumentCaptor.forClass(Event.class);
-        inOrder.verify(messagingTemplate, Mockito.times(4)).convertAndSend(Matchers.eq("/down/games/" + ID), eventCaptor.capture());
+        inOrder.verify(broadcaster, Mockito.times(4)).broadcast(Matchers.eq(ID), eventCaptor.capture());
         Assertions.assertThat(eventCaptor.getAllValues()).containsExactly(
             Event.gameStateChanged(Game.State.playing),
             Event.cardsDrawn(Event.DrawReason.refill, 81, drawnCards, new int[]{0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11}),
-            Event.playerSelectsTrio(engine.getGame().getOwner(), engine.getGame().getQueue()),
-            Event.trioSelectionSuccess(engine.getGame().getOwner(), selection, 3, engine.getGame().getQueue())
+            Event.playerSelectsTrio(engine.getGame().getOwner(), new Event.QueueDelta(0, Collections.singletonList(CREATOR.getUsername()))),
+            Event.trioSelectionSuccess(engine.getGame().getOwner(), selection, 3, new Event.QueueDelta(1, Collections.emptyList()))
         );
     }
 
     @Test
     public void select_invalid_trio() throws ActionException {
         // GIVEN
-        Queue<Card> deck = deckOf21WithTrioInFirst12();
-        Card[] drawnCards = (Card[])new ArrayList(deck).subList(0, 12).toArray(new Card[12]);
-        Mockito.when(shuffler.shuffle()).thenReturn(deck);
+        List<Card> cards = cardsOf21WithTrioInFirst12();
+        Card[] drawnCards = cards.subList(0, 12).toArray(new Card[12]);
+        Mockito.when(shuffler.shuffle()).thenReturn(Deck.of(cards));
 
         // WHEN
         engine.handle(CREATOR, new Action(Action.Type.start_game));
@@ -115,23 +139,23 @@ public class EngineTest {
         engine.handle(CREATOR, new Action(Action.Type.select_trio, selection));
 
         // THEN
-        InOrder inOrder = Mockito.inOrder(messagingTemplate);
+        InOrder inOrder = Mockito.inOrder(broadcaster);
         ArgumentCaptor<Event> eventCaptor = ArgumentCaptor.forClass(Event.class);
-        inOrder.verify(messagingTemplate, Mockito.times(4)).convertAndSend(Matchers.eq("/down/games/" + ID), eventCaptor.capture());
+        inOrder.verify(broadcaster, Mockito.times(4)).broadcast(Matchers.eq(ID), eventCaptor.capture());
         Assertions.assertThat(eventCaptor.getAllValues()).containsExactly(
                 Event.gameStateChanged(Game.State.playing),
                 Event.cardsDrawn(Event.DrawReason.refill, 81, drawnCards, new int[]{0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11}),
-                Event.playerSelectsTrio(engine.getGame().getOwner(), engine.getGame().getQueue()),
-                Event.trioSelectionFailure(engine.getGame().getOwner(), Arrays.asList(Card.Attribute.fill, Card.Attribute.number), -1, engine.getGame().getQueue())
+                Event.playerSelectsTrio(engine.getGame().getOwner(), new Event.QueueDelta(0, Collections.singletonList(CREATOR.getUsername()))),
+                Event.trioSelectionFailure(engine.getGame().getOwner(), Arrays.asList(Card.Attribute.fill, Card.Attribute.number), -1, new Event.QueueDelta(1, Collections.emptyList()))
         );
     }
 
     @Test
     public void griveup_trio_selection() throws ActionException {
         // GIVEN
-        Queue<Card> deck = deckOf21WithTrioInFirst12();
-        Card[] drawnCards = (Card[])new ArrayList(deck).subList(0, 12).toArray(new Card[12]);
-        Mockito.when(shuffler.shuffle()).thenReturn(deck);
+        List<Card> cards = cardsOf21WithTrioInFirst12();
+        Card[] drawnCards = cards.subList(0, 12).toArray(new Card[12]);
+        Mockito.when(shuffler.shuffle()).thenReturn(Deck.of(cards));
 
         // WHEN
         engine.handle(CREATOR, new Action(Action.Type.start_game));
@@ -139,65 +163,190 @@ public class EngineTest {
         engine.handle(CREATOR, new Action(Action.Type.cancel_trio));
 
         // THEN
-        InOrder inOrder = Mockito.inOrder(messagingTemplate);
+        InOrder inOrder = Mockito.inOrder(broadcaster);
         ArgumentCaptor<Event> eventCaptor = ArgumentCaptor.forClass(Event.class);
-        inOrder.verify(messagingTemplate, Mockito.times(4)).convertAndSend(Matchers.eq("/down/games/" + ID), eventCaptor.capture());
+        inOrder.verify(broadcaster, Mockito.times(4)).broadcast(Matchers.eq(ID), eventCaptor.capture());
         Assertions.assertThat(eventCaptor.getAllValues()).containsExactly(
                 Event.gameStateChanged(Game.State.playing),
                 Event.cardsDrawn(Event.DrawReason.refill, 81, drawnCards, new int[]{0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11}),
-                Event.playerSelectsTrio(engine.getGame().getOwner(), engine.getGame().getQueue()),
-                Event.trioSelectionGiveUp(engine.getGame().getOwner(), -1, engine.getGame().getQueue())
+                Event.playerSelectsTrio(engine.getGame().getOwner(), new Event.QueueDelta(0, Collections.singletonList(CREATOR.getUsername()))),
+                Event.trioSelectionGiveUp(engine.getGame().getOwner(), -1, new Event.QueueDelta(1, Collections.emptyList()))
         );
     }
 
-    private Queue<Card> deckOf21WithTrioInFirst12() {
-        return new ArrayDeque<>(Arrays.asList(
+    @Test
+    public void events_should_be_sequenced() throws ActionException {
+        // GIVEN
+        Mockito.when(shuffler.shuffle()).thenReturn(deckOf21WithTrioInFirst12());
+
+        // WHEN
+        engine.handle(CREATOR, new Action(Action.Type.start_game));
+        engine.handle(CREATOR, new Action(Action.Type.declare_trio));
+
+        // THEN
+        ArgumentCaptor<Event> eventCaptor = ArgumentCaptor.forClass(Event.class);
+        Mockito.verify(broadcaster, Mockito.times(3)).broadcast(Matchers.eq(ID), eventCaptor.capture());
+        Assertions.assertThat(eventCaptor.getAllValues()).extracting(Event::getSeq).containsExactly(1L, 2L, 3L);
+        Assertions.assertThat(engine.getGame().getSeq()).isEqualTo(3L);
+    }
+
+    @Test
+    public void view_should_be_published_after_each_change() throws Exception {
+        // GIVEN
+        User user = new User("user", "fullname", "password");
+        GameView initial = engine.getView();
+        Assertions.assertThat(initial.getPlayers()).containsOnlyKeys(CREATOR.getUsername());
+
+        // WHEN
+        engine.submit(user, new Action(Action.Type.player_join)).get();
+
+        // THEN
+        GameView view = engine.getView();
+        Assertions.assertThat(view.getSeq()).isEqualTo(1L);
+        Assertions.assertThat(view.getPlayers()).containsOnlyKeys(CREATOR.getUsername(), "user");
+        Assertions.assertThat(initial.getPlayers()).containsOnlyKeys(CREATOR.getUsername());
+
+        // --- rejected action: nothing changed, same view
+        try {
+            engine.submit(user, new Action(Action.Type.start_game)).get();
+            Assert.fail("non owner should not start the game");
+        } catch (ExecutionException e) {
+            Assertions.assertThat(e.getCause()).isInstanceOf(Forbidden.class);
+        }
+        Assertions.assertThat(engine.getView()).isSameAs(view);
+    }
+
+    @Test
+    public void restored_snapshot_should_go_on_with_the_game() throws Exception {
+        // GIVEN
+        Mockito.when(shuffler.shuffle()).thenReturn(deckOf21WithTrioInFirst12());
+        engine.handle(CREATOR, new Action(Action.Type.start_game));
+        engine.handle(CREATOR, new Action(Action.Type.declare_trio));
+
+        // WHEN
+        EngineSnapshot snapshot = EngineSnapshot.decode(engine.snapshot().get());
+        Engine restored = Engine.restore(snapshot, shuffler, broadcaster, scheduler, Runnable::run, 2000, listener);
+
+        // THEN
+        Game game = restored.getGame();
+        Game original = engine.getGame();
+        Assertions.assertThat(game.getId()).isEqualTo(ID);
+        Assertions.assertThat(game.getOwnerId()).isEqualTo(CREATOR.getUsername());
+        Assertions.assertThat(game.getCreated().toEpochMilli()).isEqualTo(original.getCreated().toEpochMilli());
+        Assertions.assertThat(game.getState()).isEqualTo(Game.State.playing);
+        Assertions.assertThat(game.getSeq()).isEqualTo(3L);
+        Assertions.assertThat(game.getPlayers()).isEqualTo(original.getPlayers());
+        Assertions.assertThat(game.getQueue()).containsExactly(CREATOR.getUsername());
+        Assertions.assertThat(game.getCardsLeft()).isEqualTo(original.getCardsLeft());
+        Assertions.assertThat(game.getBoard()).containsExactly(original.getBoard());
+        Assertions.assertThat(snapshot.getDeck().cardsLeft()).isEqualTo(21 - 12);
+
+        int[] selection = {0, 1, 2};
+        restored.handle(CREATOR, new Action(Action.Type.select_trio, selection));
+        Mockito.verify(broadcaster).broadcast(ID, Event.trioSelectionSuccess(game.getOwner(), selection, 3, new Event.QueueDelta(1, Collections.emptyList())));
+        Assertions.assertThat(game.getSeq()).isEqualTo(4L);
+    }
+
+    @Test
+    public void restored_snapshot_should_rearm_timeouts() {
+        // GIVEN
+        Game game = new Game(ID, CREATOR.getUsername());
+        game.add(new Player(CREATOR));
+        game.setState(Game.State.playing);
+        game.enqueue(CREATOR.getUsername());
+
+        // WHEN
+        Engine.restore(new EngineSnapshot(game, Deck.of(Collections.emptyList()), false, 1200, -1, 30000), shuffler, broadcaster, scheduler, Runnable::run, 2000, listener);
+
+        // THEN
+        Mockito.verify(scheduler).schedule(Matchers.any(Runnable.class), Matchers.eq(1200L));
+        Mockito.verify(scheduler).schedule(Matchers.any(Runnable.class), Matchers.eq(30000L));
+    }
+
+    @Test
+    public void stale_timeout_should_be_ignored_even_if_a_newer_one_expired() throws Exception {
+        // GIVEN: timeouts that expire right away, with their tasks run by hand
+        TimeoutScheduler wheel = new TimeoutScheduler(5, TimeUnit.MILLISECONDS, 8);
+        List<Runnable> tasks = new ArrayList<>();
+        List<TimeoutScheduler.Timeout> timeouts = new ArrayList<>();
+        Mockito.when(scheduler.schedule(Matchers.any(Runnable.class), Matchers.anyLong())).thenAnswer(invocation -> {
+            tasks.add((Runnable) invocation.getArguments()[0]);
+            TimeoutScheduler.Timeout timeout = wheel.schedule(() -> {}, 0);
+            timeouts.add(timeout);
+            return timeout;
+        });
+        try {
+            engine = new Engine(ID, CREATOR, shuffler, broadcaster, scheduler, Runnable::run, 2000, listener);
+            engine.handle(new User("user", "fullname", "password"), new Action(Action.Type.player_join));
+            Assertions.assertThat(tasks).hasSize(2);
+            while (!timeouts.get(1).isExpired()) {
+                Thread.sleep(5);
+            }
+
+            // WHEN: the first (replaced) inactivity timeout fires
+            tasks.get(0).run();
+
+            // THEN
+            Mockito.verify(listener, Mockito.never()).onInactivityTimeout(engine);
+            tasks.get(1).run();
+            Mockito.verify(listener).onInactivityTimeout(engine);
+        } finally {
+            wheel.shutdown();
+        }
+    }
+
+    private Deck deckOf21WithTrioInFirst12() {
+        return Deck.of(cardsOf21WithTrioInFirst12());
+    }
+
+    private List<Card> cardsOf21WithTrioInFirst12() {
+        return Arrays.asList(
                 // 1-12
-                new Card(0, 0, 0, 0),
-                new Card(1, 0, 0, 0),
-                new Card(2, 0, 0, 0),
-                new Card(82),
-                new Card(138),
-                new Card(32),
-                new Card(10),
-                new Card(22),
-                new Card(73),
-                new Card(9),
-                new Card(145),
-                new Card(69),
+                Card.of(0, 0, 0, 0),
+                Card.of(1, 0, 0, 0),
+                Card.of(2, 0, 0, 0),
+                Card.of(82),
+                Card.of(138),
+                Card.of(32),
+                Card.of(10),
+                Card.of(22),
+                Card.of(73),
+                Card.of(9),
+                Card.of(145),
+                Card.of(69),
                 // 13-15
-                new Card(68), new Card(41), new Card(148),
+                Card.of(68), Card.of(41), Card.of(148),
                 // 16-18
-                new Card(132), new Card(137), new Card(70),
+                Card.of(132), Card.of(137), Card.of(70),
                 // 19-21
-                new Card(25), new Card(153), new Card(90)
-        ));
+                Card.of(25), Card.of(153), Card.of(90)
+        );
     }
-    private Queue<Card> deckOf21WithFirstTrioAt19() {
-        return new ArrayDeque<>(Arrays.asList(
+    private Deck deckOf21WithFirstTrioAt19() {
+        return Deck.of(Arrays.asList(
                 // 1-12
-                new Card(73),
-                new Card(16),
-                new Card(152),
-                new Card(37),
-                new Card(21),
-                new Card(22),
-                new Card(38),
-                new Card(8),
-                new Card(68),
-                new Card(146),
-                new Card(148),
-                new Card(134),
+                Card.of(73),
+                Card.of(16),
+                Card.of(152),
+                Card.of(37),
+                Card.of(21),
+                Card.of(22),
+                Card.of(38),
+                Card.of(8),
+                Card.of(68),
+                Card.of(146),
+                Card.of(148),
+                Card.of(134),
                 // 13-15
-                new Card(137),
-                new Card(132),
-                new Card(136),
+                Card.of(137),
+                Card.of(132),
+                Card.of(136),
                 // 16-18
-                new Card(154),
-                new Card(106),
-                new Card(89),
+                Card.of(154),
+                Card.of(106),
+                Card.of(89),
                 // 19-21
-                new Card(25), new Card(153), new Card(90)
+                Card.of(25), Card.of(153), Card.of(90)
         ));
     }
 }
\ No newline at end of file
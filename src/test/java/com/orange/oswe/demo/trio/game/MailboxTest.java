@@ -0,0 +1,113 @@
+package com.orange.oswe.demo.trio.game;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MailboxTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void tasks_are_run_in_order_one_at_a_time() throws InterruptedException {
+        Mailbox mailbox = new Mailbox(executor);
+        int producers = 4;
+        int tasksPerProducer = 10000;
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger overlaps = new AtomicInteger();
+        // not thread-safe on purpose: only accessed from the mailbox
+        List<List<Integer>> received = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            received.add(new ArrayList<>());
+        }
+        CountDownLatch done = new CountDownLatch(producers * tasksPerProducer);
+
+        ExecutorService posters = Executors.newFixedThreadPool(producers);
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            posters.execute(() -> {
+                for (int i = 0; i < tasksPerProducer; i++) {
+                    int task = i;
+                    mailbox.execute(() -> {
+                        if (running.incrementAndGet() > 1) {
+                            overlaps.incrementAndGet();
+                        }
+                        received.get(producer).add(task);
+                        running.decrementAndGet();
+                        done.countDown();
+                    });
+                }
+            });
+        }
+
+        assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+        posters.shutdown();
+        assertThat(overlaps.get()).isEqualTo(0);
+        for (List<Integer> tasks : received) {
+            assertThat(tasks).hasSize(tasksPerProducer);
+            assertThat(tasks).isSorted();
+        }
+    }
+
+    @Test
+    public void tasks_posted_from_a_task_are_run_after_it() {
+        Mailbox mailbox = new Mailbox(Runnable::run);
+        List<String> trace = new ArrayList<>();
+        mailbox.execute(() -> {
+            trace.add("first:start");
+            mailbox.execute(() -> trace.add("second"));
+            trace.add("first:end");
+        });
+        assertThat(trace).containsExactly("first:start", "first:end", "second");
+    }
+
+    @Test
+    public void rejected_drain_should_fail_pending_results() {
+        // --- runs the first drain later on demand, then rejects until accepting again
+        List<Runnable> drains = new ArrayList<>();
+        boolean[] accept = {true};
+        Executor executor = task -> {
+            if (!accept[0]) {
+                throw new RejectedExecutionException("shut down");
+            }
+            drains.add(task);
+        };
+        Mailbox mailbox = new Mailbox(executor);
+        AtomicInteger run = new AtomicInteger();
+        // --- more than a batch: the drain has to be rescheduled
+        for (int i = 0; i < 100; i++) {
+            mailbox.execute(run::incrementAndGet);
+        }
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        mailbox.execute(() -> result.complete(null), result);
+
+        accept[0] = false;
+        drains.remove(0).run();
+
+        assertThat(run.get()).isEqualTo(64);
+        assertThat(result.isCompletedExceptionally()).isTrue();
+
+        // --- not stuck: scheduled again once the executor accepts
+        accept[0] = true;
+        mailbox.execute(run::incrementAndGet);
+        drains.remove(0).run();
+        assertThat(run.get()).isEqualTo(65);
+    }
+}
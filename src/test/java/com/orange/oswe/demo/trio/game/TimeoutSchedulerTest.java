@@ -0,0 +1,59 @@
+package com.orange.oswe.demo.trio.game;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TimeoutSchedulerTest {
+
+    private final TimeoutScheduler scheduler = new TimeoutScheduler(5, TimeUnit.MILLISECONDS, 8);
+
+    @After
+    public void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void timeouts_expire_after_delay() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(2);
+        long start = System.nanoTime();
+        // --- 2nd one spans several wheel rounds
+        TimeoutScheduler.Timeout timeout1 = scheduler.schedule(latch::countDown, 20);
+        TimeoutScheduler.Timeout timeout2 = scheduler.schedule(latch::countDown, 150);
+
+        assertThat(latch.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isGreaterThanOrEqualTo(150);
+        assertThat(timeout1.isExpired()).isTrue();
+        assertThat(timeout2.isExpired()).isTrue();
+        assertThat(timeout1.cancel()).isFalse();
+    }
+
+    @Test
+    public void cancelled_timeouts_do_not_expire() throws InterruptedException {
+        AtomicInteger expired = new AtomicInteger();
+        CountDownLatch latch = new CountDownLatch(1);
+        TimeoutScheduler.Timeout cancelled = scheduler.schedule(expired::incrementAndGet, 20);
+        scheduler.schedule(latch::countDown, 60);
+        assertThat(cancelled.cancel()).isTrue();
+
+        assertThat(latch.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(expired.get()).isEqualTo(0);
+        assertThat(cancelled.isCancelled()).isTrue();
+    }
+
+    @Test
+    public void failing_task_does_not_stop_scheduler() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        scheduler.schedule(() -> {
+            throw new IllegalStateException("boom");
+        }, 10);
+        scheduler.schedule(latch::countDown, 30);
+
+        assertThat(latch.await(2, TimeUnit.SECONDS)).isTrue();
+    }
+}
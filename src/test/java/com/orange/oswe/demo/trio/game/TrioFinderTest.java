@@ -0,0 +1,123 @@
+package com.orange.oswe.demo.trio.game;
+
+import com.orange.oswe.demo.trio.game.model.Card;
+import com.orange.oswe.demo.trio.game.model.Game;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TrioFinderTest {
+
+    /**
+     * Loads the given board (null for no card)
+     */
+    private static void load(TrioFinder finder, Card[] board) {
+        finder.clear();
+        for (int i = 0; i < board.length; i++) {
+            if (board[i] != null) {
+                finder.put(i, board[i].getValue());
+            }
+        }
+    }
+
+    /**
+     * Counts the trios on the given board with the former triple loop
+     */
+    private static int bruteForceCount(Card[] board) {
+        int count = 0;
+        for (int i = 0; i < board.length - 2; i++) {
+            for (int j = i + 1; j < board.length - 1; j++) {
+                for (int k = j + 1; k < board.length; k++) {
+                    if (board[i] != null && board[j] != null && board[k] != null && Card.isTrio(board[i], board[j], board[k]).isEmpty()) {
+                        count++;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    private static List<Card> allCards() {
+        List<Card> cards = new ArrayList<>();
+        for (int value = 0; value < 256; value++) {
+            if ((value & 0x03) < 3 && ((value >> 2) & 0x03) < 3 && ((value >> 4) & 0x03) < 3 && ((value >> 6) & 0x03) < 3) {
+                cards.add(Card.of(value));
+            }
+        }
+        return cards;
+    }
+
+    @Test
+    public void no_trio_on_empty_board() {
+        TrioFinder finder = new TrioFinder();
+        load(finder, new Card[Game.FULL_BOARD_SIZE]);
+        assertThat(finder.count()).isEqualTo(0);
+        assertThat(finder.hasTrio()).isFalse();
+    }
+
+    @Test
+    public void find_trio_with_holes() {
+        Card[] board = new Card[Game.FULL_BOARD_SIZE];
+        board[2] = Card.of(0, 0, 1, 2);
+        board[7] = Card.of(1, 0, 1, 1);
+        board[9] = Card.of(1, 1, 1, 1);
+        board[14] = Card.of(2, 0, 1, 0);
+        TrioFinder finder = new TrioFinder();
+        load(finder, board);
+        assertThat(finder.count()).isEqualTo(1);
+
+        // --- moving a card keeps the trio, removing it breaks it
+        finder.move(14, 0);
+        assertThat(finder.hasTrio()).isTrue();
+        finder.remove(0);
+        assertThat(finder.hasTrio()).isFalse();
+    }
+
+    @Test
+    public void count_matches_brute_force() {
+        Random random = new Random(42);
+        List<Card> cards = allCards();
+        TrioFinder finder = new TrioFinder();
+        for (int n = 0; n < 500; n++) {
+            Collections.shuffle(cards, random);
+            Card[] board = new Card[Game.FULL_BOARD_SIZE];
+            for (int i = 0; i < board.length; i++) {
+                // leave some holes
+                board[i] = random.nextInt(5) == 0 ? null : cards.get(i);
+            }
+            load(finder, board);
+
+            int expected = bruteForceCount(board);
+            assertThat(finder.count()).isEqualTo(expected);
+            assertThat(finder.hasTrio()).isEqualTo(expected > 0);
+        }
+    }
+
+    @Test
+    public void incremental_count_should_match_a_full_scan() {
+        Random random = new Random(7);
+        List<Card> cards = allCards();
+        Collections.shuffle(cards, random);
+        Deque<Card> deck = new ArrayDeque<>(cards);
+        TrioFinder finder = new TrioFinder();
+        Card[] board = new Card[Game.FULL_BOARD_SIZE];
+        while (!deck.isEmpty()) {
+            int position = random.nextInt(board.length);
+            int other = random.nextInt(board.length);
+            if (board[position] == null) {
+                board[position] = deck.remove();
+                finder.put(position, board[position].getValue());
+            } else if (board[other] == null) {
+                board[other] = board[position];
+                board[position] = null;
+                finder.move(position, other);
+            } else {
+                board[position] = null;
+                finder.remove(position);
+            }
+            assertThat(finder.count()).isEqualTo(bruteForceCount(board));
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.orange.oswe.demo.trio.game.events;
+
+import com.orange.oswe.demo.trio.game.actions.Action;
+import com.orange.oswe.demo.trio.game.model.Card;
+import com.orange.oswe.demo.trio.game.model.Game;
+import com.orange.oswe.demo.trio.game.model.Player;
+import org.junit.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.MessageConversionException;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class BinaryEventCodecTest {
+
+    private static final Player PLAYER = new Player("player1", "Player Ünö");
+
+    @Test
+    public void all_event_types_roundtrip() {
+        Event.QueueDelta delta = new Event.QueueDelta(1, Arrays.asList("player2", "player3"));
+        Event[] events = {
+                Event.gameStateChanged(Game.State.over),
+                Event.playerJoined(PLAYER),
+                Event.playerLeft(PLAYER),
+                Event.playerSelectsTrio(PLAYER, delta),
+                Event.playerDeclaresTrio(PLAYER, new Event.QueueDelta(0, Collections.singletonList("player1"))),
+                Event.trioSelectionTimeouted(PLAYER, -1, delta),
+                Event.trioSelectionGiveUp(PLAYER, -300, delta),
+                Event.trioSelectionWithdraw(PLAYER, Event.QueueDelta.none()),
+                Event.trioSelectionFailure(PLAYER, Arrays.asList(Card.Attribute.color, Card.Attribute.number), 0, delta),
+                Event.trioSelectionSuccess(PLAYER, new int[]{0, 7, 14}, Integer.MAX_VALUE, delta),
+                Event.cardsDrawn(Event.DrawReason.replaced, 81, new Card[]{Card.of(0), Card.of(85), Card.of(170)}, new int[]{12, 13, 14}),
+                Event.cardsMoved(new int[]{12, 14}, new int[]{3, 5})
+        };
+        long seq = 1;
+        for (Event event : events) {
+            event.setSeq(seq);
+            Event decoded = BinaryEventCodec.decode(BinaryEventCodec.encode(event));
+            assertThat(decoded).isEqualTo(event);
+            assertThat(decoded.getSeq()).isEqualTo(seq);
+            seq *= 1000;
+        }
+    }
+
+    @Test
+    public void cards_drawn_is_compact() {
+        Event event = Event.cardsDrawn(Event.DrawReason.refill, 81, new Card[]{Card.of(0), Card.of(85), Card.of(170)}, new int[]{0, 1, 2});
+        event.setSeq(5);
+        // --- type, seq, reason, nbCardsBeforeDraw, count, 3 cards, 3 positions
+        assertThat(BinaryEventCodec.encode(event)).hasSize(11);
+    }
+
+    @Test
+    public void actions_roundtrip() {
+        Action select = new Action(Action.Type.select_trio, new int[]{1, 5, 11});
+        assertThat(BinaryEventCodec.decodeAction(BinaryEventCodec.encode(select))).isEqualTo(select);
+        Action join = new Action(Action.Type.player_join);
+        assertThat(BinaryEventCodec.decodeAction(BinaryEventCodec.encode(join))).isEqualTo(join);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void truncated_message_is_rejected() {
+        byte[] bytes = BinaryEventCodec.encode(Event.playerJoined(PLAYER));
+        BinaryEventCodec.decode(Arrays.copyOf(bytes, bytes.length - 1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknown_action_type_is_rejected() {
+        BinaryEventCodec.decodeAction(new byte[]{(byte) Action.Type.values().length, 0});
+    }
+
+    @Test
+    public void malformed_binary_action_frame_is_a_conversion_error() {
+        Message<byte[]> message = MessageBuilder.withPayload(Base64.getEncoder().encode(new byte[]{42, 0}))
+                .setHeader(MessageHeaders.CONTENT_TYPE, BinaryEventMessageConverter.MIME_TYPE)
+                .build();
+        assertThatThrownBy(() -> new BinaryEventMessageConverter().fromMessage(message, Action.class))
+                .isInstanceOf(MessageConversionException.class)
+                .hasMessageContaining("Unknown Type: 42");
+    }
+}
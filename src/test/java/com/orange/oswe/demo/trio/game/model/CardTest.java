@@ -1,5 +1,6 @@
 package com.orange.oswe.demo.trio.game.model;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.Test;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -10,7 +11,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 public class CardTest {
     @Test
     public void card_creator() {
-        Card card = new Card(0, 1, 2, 0);
+        Card card = Card.of(0, 1, 2, 0);
         assertThat(card.getAttribute(Card.Attribute.color)).isEqualTo(0);
         assertThat(card.getAttribute(Card.Attribute.shape)).isEqualTo(1);
         assertThat(card.getAttribute(Card.Attribute.fill)).isEqualTo(2);
@@ -19,18 +20,56 @@ public class CardTest {
 
     @Test
     public void check_not_a_trio() {
-        Card card1 = new Card(0, 0, 1, 2);
-        Card card2 = new Card(1, 0, 1, 2);
-        Card card3 = new Card(2, 0, 1, 0);
+        Card card1 = Card.of(0, 0, 1, 2);
+        Card card2 = Card.of(1, 0, 1, 2);
+        Card card3 = Card.of(2, 0, 1, 0);
         assertThat(Card.isTrio(card1, card2, card3)).containsExactlyInAnyOrder(Card.Attribute.number);
     }
 
     @Test
     public void check_trio() {
-        Card card1 = new Card(0, 0, 1, 2);
-        Card card2 = new Card(1, 0, 1, 1);
-        Card card3 = new Card(2, 0, 1, 0);
+        Card card1 = Card.of(0, 0, 1, 2);
+        Card card2 = Card.of(1, 0, 1, 1);
+        Card card3 = Card.of(2, 0, 1, 0);
         assertThat(Card.isTrio(card1, card2, card3)).isEmpty();
     }
 
-}
\ No newline at end of file
+    @Test
+    public void faulty_attributes_mask() {
+        Card card1 = Card.of(0, 0, 1, 2);
+        Card card2 = Card.of(1, 0, 2, 2);
+        Card card3 = Card.of(2, 0, 1, 0);
+        int faulty = Card.faultyAttributes(card1.getValue(), card2.getValue(), card3.getValue());
+        assertThat(faulty).isEqualTo((1 << Card.Attribute.fill.ordinal()) | (1 << Card.Attribute.number.ordinal()));
+        assertThat(Card.Attribute.fromMask(faulty)).containsExactly(Card.Attribute.fill, Card.Attribute.number);
+        assertThat(TrioTable.isTrio(card1.getValue(), card2.getValue(), card3.getValue())).isFalse();
+    }
+
+    @Test
+    public void faulty_attributes_on_all_attribute_combinations() {
+        for (int a = 0; a < 3; a++) {
+            for (int b = 0; b < 3; b++) {
+                for (int c = 0; c < 3; c++) {
+                    boolean valid = (a == b && b == c) || (a != b && b != c && a != c);
+                    int faulty = Card.faultyAttributes(Card.of(a, 0, 0, 0).getValue(), Card.of(b, 0, 0, 0).getValue(), Card.of(c, 0, 0, 0).getValue());
+                    assertThat(faulty).isEqualTo(valid ? 0 : 1 << Card.Attribute.color.ordinal());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void cards_should_be_canonical() throws Exception {
+        Card card = Card.of(0, 1, 2, 0);
+        assertThat(Card.of(card.getValue())).isSameAs(card);
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        assertThat(objectMapper.readValue(objectMapper.writeValueAsString(card), Card.class)).isSameAs(card);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalid_value_should_be_rejected() {
+        Card.of(3);
+    }
+
+}
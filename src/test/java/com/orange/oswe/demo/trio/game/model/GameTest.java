@@ -0,0 +1,84 @@
+package com.orange.oswe.demo.trio.game.model;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class GameTest {
+
+    private Game newGame(int players) {
+        Game game = new Game("g1", "p0");
+        for (int i = 0; i < players; i++) {
+            assertThat(game.add(new Player("p" + i, "Player " + i))).isEqualTo(i);
+        }
+        return game;
+    }
+
+    @Test
+    public void queue_should_wrap_around_and_grow_with_players() {
+        Game game = newGame(3);
+        // --- move the ring buffer head around
+        for (int round = 0; round < 5; round++) {
+            game.enqueue("p1");
+            game.enqueue("p2");
+            game.dequeue();
+            game.dequeue();
+        }
+        game.enqueue("p2");
+        game.enqueue("p0");
+        game.dequeue();
+        game.enqueue("p1");
+        game.enqueue("p2");
+        for (int i = 3; i < 10; i++) {
+            game.add(new Player("p" + i, "Player " + i));
+        }
+        game.enqueue("p9");
+
+        assertThat(game.getQueue()).containsExactly("p0", "p1", "p2", "p9");
+        assertThat(game.queueHead()).isEqualTo("p0");
+        assertThat(game.isQueued("p1")).isTrue();
+        assertThat(game.isQueued("p3")).isFalse();
+        assertThat(game.getPlayers()).hasSize(10);
+    }
+
+    @Test
+    public void player_leaving_should_keep_its_slot_until_reset() {
+        Game game = newGame(2);
+        game.incrScore("p1", 3);
+        game.enqueue("p1");
+        game.remove(new Player("p1", "Player 1"));
+
+        assertThat(game.hasPlayer("p1")).isFalse();
+        assertThat(game.getPlayers()).containsOnlyKeys("p0");
+        assertThat(game.getScores()).containsEntry("p1", 3);
+        assertThat(game.getQueue()).containsExactly("p1");
+
+        game.reset();
+        assertThat(game.getScores()).containsOnlyKeys("p0");
+        assertThat(game.getQueue()).isEmpty();
+        // --- freed slot is reused
+        assertThat(game.add(new Player("p2", "Player 2"))).isEqualTo(1);
+    }
+
+    @Test
+    public void reset_should_clear_the_board_and_scores() {
+        Game game = newGame(1);
+        game.setCard(0, 0);
+        game.setCard(14, 170);
+        game.moveCard(14, 3);
+        game.incrScore("p0", -1);
+        game.setCardsLeft(12);
+
+        assertThat(game.cardAt(0)).isEqualTo(0);
+        assertThat(game.cardAt(3)).isEqualTo(170);
+        assertThat(game.cardAt(14)).isEqualTo(Game.NO_CARD);
+        assertThat(game.getBoard()[3]).isEqualTo(Card.of(170));
+
+        game.reset();
+        for (int i = 0; i < Game.FULL_BOARD_SIZE; i++) {
+            assertThat(game.hasCard(i)).isFalse();
+        }
+        assertThat(game.getScore("p0")).isEqualTo(0);
+        assertThat(game.getCardsLeft()).isEqualTo(Game.TOTAL_NUMBER_OF_CARDS);
+    }
+}
@@ -0,0 +1,67 @@
+package com.orange.oswe.demo.trio.game.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class GameViewTest {
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private Game newGame() {
+        Game game = new Game("g1", "owner");
+        game.add(new Player("owner", "The Owner"));
+        game.add(new Player("player", "A Player"));
+        game.setState(Game.State.playing);
+        game.setScore("player", 3);
+        game.enqueue("owner");
+        game.setCard(0, Card.of(0, 1, 2, 0).getValue());
+        game.setCard(4, Card.of(2, 2, 2, 2).getValue());
+        game.setCardsLeft(60);
+        game.setSeq(12);
+        return game;
+    }
+
+    @Test
+    public void view_should_serialize_as_the_game() throws Exception {
+        Game game = newGame();
+        GameView view = GameView.of(game, null);
+
+        // --- both parsed back, so that numbers are compared as the same node types
+        assertThat(objectMapper.readTree(view.toJson(objectMapper))).isEqualTo(objectMapper.readTree(objectMapper.writeValueAsBytes(game)));
+        assertThat(view.getOwner()).isEqualTo(game.getOwner());
+        assertThat(view.getScore("player")).isEqualTo(3);
+    }
+
+    @Test
+    public void view_should_not_change_with_the_game() throws Exception {
+        Game game = newGame();
+        GameView view = GameView.of(game, null);
+        byte[] json = view.toJson(objectMapper);
+
+        game.removeCard(0);
+        game.incrScore("player", 3);
+        game.clearQueue();
+        game.remove(new Player("player", "A Player"));
+
+        assertThat(view.getBoard().get(0)).isEqualTo(Card.of(0, 1, 2, 0));
+        assertThat(view.getScore("player")).isEqualTo(3);
+        assertThat(view.getQueue()).containsExactly("owner");
+        assertThat(view.getPlayers()).containsOnlyKeys("owner", "player");
+        // --- serialized once
+        assertThat(view.toJson(objectMapper)).isSameAs(json);
+    }
+
+    @Test
+    public void unchanged_players_should_be_shared() {
+        Game game = newGame();
+        GameView first = GameView.of(game, null);
+        game.setScore("owner", 3);
+        game.setSeq(13);
+        GameView second = GameView.of(game, first);
+
+        assertThat(second.getPlayers()).isSameAs(first.getPlayers());
+        assertThat(second.getScore("owner")).isEqualTo(3);
+        assertThat(first.getScore("owner")).isEqualTo(0);
+    }
+}
@@ -0,0 +1,35 @@
+package com.orange.oswe.demo.trio.game.model;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TrioTableTest {
+
+    @Test
+    public void table_should_match_attribute_comparisons_on_all_triples() {
+        List<Integer> values = new ArrayList<>();
+        for (int value = 0; value < 256; value++) {
+            if ((value & 0x03) < 3 && ((value >> 2) & 0x03) < 3 && ((value >> 4) & 0x03) < 3 && ((value >> 6) & 0x03) < 3) {
+                assertThat(TrioTable.indexOf(value)).isEqualTo(values.size());
+                values.add(value);
+            } else {
+                assertThat(TrioTable.indexOf(value)).isEqualTo(-1);
+            }
+        }
+        assertThat(values).hasSize(Game.TOTAL_NUMBER_OF_CARDS);
+        for (int v1 : values) {
+            for (int v2 : values) {
+                assertThat(Card.faultyAttributes(v1, v2, TrioTable.third(v1, v2))).isEqualTo(0);
+                for (int v3 : values) {
+                    if (TrioTable.isTrio(v1, v2, v3) != (Card.faultyAttributes(v1, v2, v3) == 0)) {
+                        throw new AssertionError("Mismatch on " + v1 + ", " + v2 + ", " + v3);
+                    }
+                }
+            }
+        }
+    }
+}
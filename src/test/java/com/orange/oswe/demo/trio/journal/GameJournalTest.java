@@ -0,0 +1,158 @@
+package com.orange.oswe.demo.trio.journal;
+
+import com.orange.oswe.demo.trio.domain.User;
+import com.orange.oswe.demo.trio.game.Deck;
+import com.orange.oswe.demo.trio.game.Engine;
+import com.orange.oswe.demo.trio.game.Shuffler;
+import com.orange.oswe.demo.trio.game.TimeoutScheduler;
+import com.orange.oswe.demo.trio.game.actions.Action;
+import com.orange.oswe.demo.trio.game.events.Event;
+import com.orange.oswe.demo.trio.game.model.Card;
+import com.orange.oswe.demo.trio.game.model.Game;
+import com.orange.oswe.demo.trio.game.model.Player;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class GameJournalTest {
+    private static final User OWNER = new User("owner", "The Owner", "password");
+    private static final User PLAYER = new User("player", "A Player", "password");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private GameJournal journal;
+
+    @After
+    public void tearDown() {
+        if (journal != null) {
+            journal.shutdown();
+        }
+    }
+
+    private Game newGame(String id) {
+        Game game = new Game(id, OWNER.getUsername());
+        game.add(new Player(OWNER));
+        return game;
+    }
+
+    @Test
+    public void records_should_be_read_in_order_across_segments() throws Exception {
+        // --- tiny segments: a few records each
+        journal = new GameJournal(folder.getRoot().getPath(), 64);
+        journal.created(newGame("g1"));
+        for (int i = 0; i < 20; i++) {
+            journal.action("g1", PLAYER, new Action(Action.Type.select_trio, new int[]{i % 15, 1, 2}));
+            Event event = Event.playerJoined(new Player(PLAYER));
+            event.setSeq(i + 1);
+            journal.event("g1", event);
+        }
+        journal.sync().get(5, TimeUnit.SECONDS);
+
+        List<JournalRecord> records = journal.read("g1");
+        assertThat(records).hasSize(41);
+        assertThat(records.get(0).getType()).isEqualTo(JournalRecord.Type.created);
+        assertThat(records.get(0).getPlayer()).isEqualTo(new Player(OWNER));
+        for (int i = 0; i < 20; i++) {
+            JournalRecord action = records.get(1 + 2 * i);
+            assertThat(action.getPlayer().getId()).isEqualTo(PLAYER.getUsername());
+            assertThat(action.getAction().getSelection()).containsExactly(i % 15, 1, 2);
+            assertThat(records.get(2 + 2 * i).getEvent().getSeq()).isEqualTo(i + 1);
+        }
+        assertThat(new File(folder.getRoot(), "g1").list().length).isGreaterThan(1);
+    }
+
+    @Test
+    public void journal_should_go_on_after_a_restart() throws Exception {
+        journal = new GameJournal(folder.getRoot().getPath(), 4096);
+        journal.created(newGame("g1"));
+        journal.action("g1", OWNER, new Action(Action.Type.start_game));
+        journal.close("g1");
+        journal.shutdown();
+
+        journal = new GameJournal(folder.getRoot().getPath(), 4096);
+        journal.action("g1", OWNER, new Action(Action.Type.declare_trio));
+        journal.sync().get(5, TimeUnit.SECONDS);
+
+        assertThat(journal.read("g1")).extracting(JournalRecord::getType).containsExactly(
+                JournalRecord.Type.created, JournalRecord.Type.action, JournalRecord.Type.action);
+        assertThat(journal.read("unknown")).isEmpty();
+        assertThat(journal.read("../g1")).isEmpty();
+    }
+
+    @Test
+    public void replay_should_rebuild_the_game() throws Exception {
+        journal = new GameJournal(folder.getRoot().getPath(), 1024);
+        Engine engine = new Engine("g1", OWNER, new Shuffler(), (gameId, event) -> {}, Mockito.mock(TimeoutScheduler.class), Runnable::run, 60000, new Engine.Listener() {
+            @Override
+            public void onInactivityTimeout(Engine engine) {
+            }
+
+            @Override
+            public void onAction(Engine engine, User user, Action action) {
+                journal.action(engine.getGame().getId(), user, action);
+            }
+
+            @Override
+            public void onEvent(Engine engine, Event event) {
+                journal.event(engine.getGame().getId(), event);
+            }
+
+            @Override
+            public void onShuffled(Engine engine, long seed) {
+                journal.shuffled(engine.getGame().getId(), seed);
+            }
+        });
+        journal.created(engine.getGame());
+        engine.submit(PLAYER, new Action(Action.Type.player_join)).get();
+        engine.submit(OWNER, new Action(Action.Type.start_game)).get();
+        engine.submit(PLAYER, new Action(Action.Type.declare_trio)).get();
+        engine.submit(OWNER, new Action(Action.Type.declare_trio)).get();
+        engine.submit(PLAYER, new Action(Action.Type.cancel_trio)).get();
+        journal.sync().get(5, TimeUnit.SECONDS);
+
+        Game expected = engine.getGame();
+        GameReplay.Result replayed = journal.replay("g1").get();
+        Game game = replayed.getGame();
+        assertThat(game.getId()).isEqualTo("g1");
+        assertThat(game.getOwnerId()).isEqualTo(OWNER.getUsername());
+        assertThat(game.getCreated().toEpochMilli()).isEqualTo(expected.getCreated().toEpochMilli());
+        assertThat(game.getState()).isEqualTo(Game.State.playing);
+        assertThat(game.getPlayers()).isEqualTo(expected.getPlayers());
+        assertThat(game.getScores()).isEqualTo(expected.getScores()).containsEntry(PLAYER.getUsername(), -1);
+        assertThat(game.getQueue()).containsExactlyElementsOf(expected.getQueue()).containsExactly(OWNER.getUsername());
+        assertThat(game.getBoard()).containsExactly(expected.getBoard());
+        assertThat(game.getCardsLeft()).isEqualTo(expected.getCardsLeft());
+        assertThat(game.getSeq()).isEqualTo(expected.getSeq());
+
+        assertThat(journal.replay("unknown")).isEmpty();
+
+        // --- the recorded seed deals the same cards again
+        Deck deck = null;
+        for (JournalRecord record : journal.read("g1")) {
+            if (record.getType() == JournalRecord.Type.shuffled) {
+                deck = Deck.shuffled(record.getSeed());
+            } else if (record.getType() == JournalRecord.Type.event && record.getEvent().getType() == Event.Type.cards_drawn) {
+                for (Card card : ((Event.CardsDrawnEvent) record.getEvent()).getCards()) {
+                    assertThat(deck.draw()).isEqualTo(card.getValue());
+                }
+            }
+        }
+        assertThat(deck.cardsLeft()).isEqualTo(expected.getCardsLeft());
+
+        // --- the replayed deck resumes where the game stopped dealing
+        Deck rest = replayed.getDeck().get();
+        assertThat(rest.cardsLeft()).isEqualTo(expected.getCardsLeft());
+        while (!deck.isEmpty()) {
+            assertThat(rest.draw()).isEqualTo(deck.draw());
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.orange.oswe.demo.trio.mvc;
+
+import com.orange.oswe.demo.trio.cluster.ClusterService;
+import com.orange.oswe.demo.trio.domain.User;
+import com.orange.oswe.demo.trio.game.actions.Action;
+import com.orange.oswe.demo.trio.game.actions.Forbidden;
+import com.orange.oswe.demo.trio.service.CurrentUserService;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Matchers;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.ModelAndView;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(MockitoJUnitRunner.class)
+public class GameControllerTest {
+
+    @Mock
+    ClusterService clusterService;
+
+    @Mock
+    CurrentUserService currentUser;
+
+    GameController controller;
+
+    Authentication authentication = new UsernamePasswordAuthenticationToken("user", null, AuthorityUtils.createAuthorityList("ROLE_USER"));
+
+    @Before
+    public void setup() {
+        controller = new GameController();
+        ReflectionTestUtils.setField(controller, "clusterService", clusterService);
+        ReflectionTestUtils.setField(controller, "currentUser", currentUser);
+        Mockito.when(currentUser.getCurrentUser()).thenReturn(new User("user", "User", "pwd"));
+    }
+
+    /**
+     * Failed future as derived from another one (e.g. a remote call)
+     */
+    private static <T> CompletableFuture<T> failedWith(Exception error) {
+        CompletableFuture<T> failed = new CompletableFuture<>();
+        failed.completeExceptionally(error);
+        return failed.thenApply(result -> result);
+    }
+
+    /**
+     * The error as seen by the async return value handler (get() would unwrap it)
+     */
+    private static Throwable errorOf(CompletableFuture<ModelAndView> future) throws Exception {
+        return future.handle((result, error) -> error).get();
+    }
+
+    @Test
+    public void create_game_errors_should_not_be_wrapped() throws Exception {
+        Mockito.when(clusterService.createGame(Matchers.any(User.class))).thenReturn(failedWith(new Forbidden("nope")));
+
+        assertThat(errorOf(controller.createGameAndRedirect(authentication))).isInstanceOf(Forbidden.class);
+    }
+
+    @Test
+    public void join_game_errors_should_not_be_wrapped() throws Exception {
+        Mockito.when(clusterService.submit(Matchers.eq("game1"), Matchers.any(User.class), Matchers.any(Action.class))).thenReturn(failedWith(new Forbidden("nope")));
+
+        assertThat(errorOf(controller.joinGameAndRedirect(authentication, "game1"))).isInstanceOf(Forbidden.class);
+    }
+}
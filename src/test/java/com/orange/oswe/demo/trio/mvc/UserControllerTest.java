@@ -0,0 +1,112 @@
+package com.orange.oswe.demo.trio.mvc;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.orange.oswe.demo.trio.domain.User;
+import com.orange.oswe.demo.trio.domain.UserSummary;
+import com.orange.oswe.demo.trio.repository.UserRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.ModelAndView;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Users listing pages, against the schema and data of the Flyway migrations
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest
+public class UserControllerTest {
+
+    private static final int USERS = 120;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private UserController controller;
+
+    private final List<String> usernames = new ArrayList<>();
+
+    @Before
+    public void setup() {
+        controller = new UserController();
+        ReflectionTestUtils.setField(controller, "userRepository", userRepository);
+        for (int i = 0; i < USERS; i++) {
+            String username = String.format("user%03d", i);
+            userRepository.save(new User(username, "User " + i, "pwd"));
+            usernames.add(username);
+        }
+        // --- created by the migrations
+        usernames.add("admin");
+        Collections.sort(usernames);
+    }
+
+    private static List<String> usernamesOf(List<UserSummary> users) {
+        return users.stream().map(UserSummary::getUsername).collect(Collectors.toList());
+    }
+
+    @Test
+    public void pages_should_hold_50_users_and_link_to_the_next_one() {
+        UserController.UsersPage page = controller.getUsers(Direction.ASC, null);
+        assertThat(usernamesOf(page.getUsers())).containsExactlyElementsOf(usernames.subList(0, 50));
+        assertThat(page.getNext()).isEqualTo(usernames.get(49));
+
+        page = controller.getUsers(Direction.ASC, page.getNext());
+        assertThat(usernamesOf(page.getUsers())).containsExactlyElementsOf(usernames.subList(50, 100));
+        assertThat(page.getNext()).isEqualTo(usernames.get(99));
+
+        // --- last page: no next one
+        page = controller.getUsers(Direction.ASC, page.getNext());
+        assertThat(usernamesOf(page.getUsers())).containsExactlyElementsOf(usernames.subList(100, 121));
+        assertThat(page.getNext()).isNull();
+    }
+
+    @Test
+    public void descending_pages_should_walk_all_users() {
+        List<String> reversed = new ArrayList<>(usernames);
+        Collections.reverse(reversed);
+        List<String> walked = new ArrayList<>();
+        String next = null;
+        do {
+            UserController.UsersPage page = controller.getUsers(Direction.DESC, next);
+            walked.addAll(usernamesOf(page.getUsers()));
+            next = page.getNext();
+        } while (next != null);
+        assertThat(walked).containsExactlyElementsOf(reversed);
+    }
+
+    @Test
+    public void page_of_exactly_50_users_should_be_the_last_one() {
+        // --- exactly 50 users after user069: the extra one fetched is missing
+        UserController.UsersPage page = controller.getUsers(Direction.ASC, "user069");
+        assertThat(page.getUsers()).hasSize(50);
+        assertThat(page.getNext()).isNull();
+    }
+
+    @Test
+    public void html_page_should_expose_the_users_and_the_next_cursor() {
+        ModelAndView modelAndView = controller.allUsers(null, Direction.DESC, "user100");
+        assertThat(modelAndView.getModel().get("next")).isEqualTo("user050");
+        assertThat(modelAndView.getModel().get("direction")).isEqualTo(Direction.DESC);
+    }
+
+    @Test
+    public void json_page_should_serialize_users_and_next() throws Exception {
+        JsonNode json = new ObjectMapper().valueToTree(controller.getUsers(Direction.ASC, "user110"));
+        assertThat(json.get("users")).hasSize(9);
+        assertThat(json.get("users").get(0).get("username").asText()).isEqualTo("user111");
+        assertThat(json.get("users").get(0).has("password")).isFalse();
+        assertThat(json.get("next").isNull()).isTrue();
+    }
+}
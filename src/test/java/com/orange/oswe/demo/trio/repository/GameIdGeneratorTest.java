@@ -0,0 +1,59 @@
+package com.orange.oswe.demo.trio.repository;
+
+import org.junit.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class GameIdGeneratorTest {
+
+    @Test
+    public void ids_are_unique_across_threads() throws InterruptedException {
+        GameIdGenerator generator = new GameIdGenerator(0);
+        int threads = 8;
+        int idsPerThread = 50000;
+        Set<String> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            executor.execute(() -> {
+                for (int i = 0; i < idsPerThread; i++) {
+                    ids.add(generator.next());
+                }
+            });
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(ids).hasSize(threads * idsPerThread);
+    }
+
+    @Test
+    public void ids_are_increasing_and_short() {
+        GameIdGenerator generator = new GameIdGenerator(GameIdGenerator.MAX_NODE_ID);
+        long prev = generator.nextLong();
+        for (int i = 0; i < 10000; i++) {
+            long id = generator.nextLong();
+            assertThat(id).isGreaterThan(prev);
+            prev = id;
+        }
+        assertThat(generator.next().length()).isLessThanOrEqualTo(13);
+    }
+
+    @Test
+    public void ids_from_different_nodes_differ() {
+        long id1 = new GameIdGenerator(1).nextLong();
+        long id2 = new GameIdGenerator(2).nextLong();
+        assertThat((id1 >>> GameIdGenerator.SEQUENCE_BITS) & GameIdGenerator.MAX_NODE_ID).isEqualTo(1);
+        assertThat((id2 >>> GameIdGenerator.SEQUENCE_BITS) & GameIdGenerator.MAX_NODE_ID).isEqualTo(2);
+        assertThat(GameIdGenerator.nodeOf(new GameIdGenerator(513).next())).isEqualTo(513);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void node_id_out_of_range_is_rejected() {
+        new GameIdGenerator(GameIdGenerator.MAX_NODE_ID + 1);
+    }
+}
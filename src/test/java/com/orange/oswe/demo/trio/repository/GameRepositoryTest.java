@@ -0,0 +1,64 @@
+package com.orange.oswe.demo.trio.repository;
+
+import com.orange.oswe.demo.trio.domain.User;
+import com.orange.oswe.demo.trio.game.Broadcaster;
+import com.orange.oswe.demo.trio.game.Engine;
+import com.orange.oswe.demo.trio.journal.GameJournal;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class GameRepositoryTest {
+
+    private final GameRepository repository = new GameRepository();
+
+    @Before
+    public void setup() {
+        ReflectionTestUtils.setField(repository, "inactivityTimeout", 60000L);
+        ReflectionTestUtils.setField(repository, "broadcaster", (Broadcaster) (gameId, event) -> {});
+        ReflectionTestUtils.setField(repository, "idGenerator", new GameIdGenerator(0));
+        ReflectionTestUtils.setField(repository, "snapshotStore", new GameSnapshotStore("", 0));
+        ReflectionTestUtils.setField(repository, "journal", new GameJournal("", 0));
+    }
+
+    @After
+    public void tearDown() {
+        repository.shutdown();
+    }
+
+    private static List<String> idsOf(List<Engine> engines) {
+        return engines.stream().map(engine -> engine.getView().getId()).collect(Collectors.toList());
+    }
+
+    @Test
+    public void recent_games_should_be_paged_from_the_newest_one() {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            ids.add(repository.createNew(new User("user" + i, "User " + i, null)).getView().getId());
+        }
+        Collections.reverse(ids);
+        Set<String> excluded = new HashSet<>(ids.subList(0, 2));
+
+        List<String> walked = new ArrayList<>();
+        String before = null;
+        List<String> page;
+        do {
+            page = idsOf(repository.findRecent(before, 10, excluded));
+            assertThat(page.size()).isLessThanOrEqualTo(10);
+            walked.addAll(page);
+            before = page.isEmpty() ? null : page.get(page.size() - 1);
+        } while (page.size() == 10);
+
+        assertThat(walked).containsExactlyElementsOf(ids.subList(2, 25));
+    }
+}
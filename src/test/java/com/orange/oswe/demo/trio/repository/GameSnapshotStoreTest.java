@@ -0,0 +1,59 @@
+package com.orange.oswe.demo.trio.repository;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class GameSnapshotStoreTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void saved_snapshots_should_be_loaded() throws Exception {
+        File file = new File(folder.getRoot(), "games.snapshot");
+        GameSnapshotStore store = new GameSnapshotStore(file.getPath(), 0);
+        assertThat(store.load()).isEmpty();
+
+        store.save(Arrays.asList(new byte[]{1, 2, 3}, new byte[0], new byte[]{4}));
+        assertThat(new GameSnapshotStore(file.getPath(), 0).load()).containsExactly(new byte[]{1, 2, 3}, new byte[0], new byte[]{4});
+
+        // --- replaced by the next save
+        store.save(Collections.singletonList(new byte[]{5, 6}));
+        assertThat(store.load()).containsExactly(new byte[]{5, 6});
+        assertThat(new File(folder.getRoot(), "games.snapshot.tmp")).doesNotExist();
+    }
+
+    @Test
+    public void corrupted_snapshots_should_be_ignored() throws Exception {
+        File file = new File(folder.getRoot(), "games.snapshot");
+        GameSnapshotStore store = new GameSnapshotStore(file.getPath(), 0);
+        store.save(Collections.singletonList(new byte[]{1, 2, 3}));
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(raf.length() - 1);
+            raf.write(9);
+        }
+        assertThat(store.load()).isEmpty();
+
+        // --- truncated
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 2);
+        }
+        assertThat(store.load()).isEmpty();
+    }
+
+    @Test
+    public void disabled_store_should_do_nothing() throws Exception {
+        GameSnapshotStore store = new GameSnapshotStore("", 0);
+        assertThat(store.isEnabled()).isFalse();
+        store.save(Collections.singletonList(new byte[]{1}));
+        assertThat(store.load()).isEmpty();
+    }
+}
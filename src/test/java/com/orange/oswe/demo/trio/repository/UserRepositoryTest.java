@@ -0,0 +1,82 @@
+package com.orange.oswe.demo.trio.repository;
+
+import com.orange.oswe.demo.trio.domain.User;
+import com.orange.oswe.demo.trio.domain.UserSummary;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Keyset pagination on the username, against the schema and data of the Flyway migrations
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest
+public class UserRepositoryTest {
+
+    private static final int USERS = 120;
+    private static final int PAGE_SIZE = 50;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final List<String> usernames = new ArrayList<>();
+
+    @Before
+    public void setup() {
+        for (int i = 0; i < USERS; i++) {
+            String username = String.format("user%03d", i);
+            userRepository.save(new User(username, "User " + i, "pwd"));
+            usernames.add(username);
+        }
+        // --- created by the migrations
+        usernames.add("admin");
+        Collections.sort(usernames);
+    }
+
+    private List<String> walk(Direction direction) {
+        PageRequest page = new PageRequest(0, PAGE_SIZE, direction, "username");
+        List<String> walked = new ArrayList<>();
+        List<UserSummary> users = userRepository.findAllBy(page);
+        while (!users.isEmpty()) {
+            assertThat(users.size()).isLessThanOrEqualTo(PAGE_SIZE);
+            users.forEach(user -> walked.add(user.getUsername()));
+            String last = users.get(users.size() - 1).getUsername();
+            users = direction == Direction.ASC ? userRepository.findByUsernameGreaterThan(last, page) : userRepository.findByUsernameLessThan(last, page);
+        }
+        return walked;
+    }
+
+    @Test
+    public void pages_should_walk_all_users_in_ascending_order() {
+        assertThat(walk(Direction.ASC)).containsExactlyElementsOf(usernames);
+    }
+
+    @Test
+    public void pages_should_walk_all_users_in_descending_order() {
+        List<String> reversed = new ArrayList<>(usernames);
+        Collections.reverse(reversed);
+        assertThat(walk(Direction.DESC)).containsExactlyElementsOf(reversed);
+    }
+
+    @Test
+    public void pages_should_start_after_the_given_username() {
+        PageRequest page = new PageRequest(0, 3, Direction.ASC, "username");
+        assertThat(userRepository.findByUsernameGreaterThan("user099", page).stream().map(UserSummary::getUsername).collect(Collectors.toList()))
+                .containsExactly("user100", "user101", "user102");
+        page = new PageRequest(0, 3, Direction.DESC, "username");
+        assertThat(userRepository.findByUsernameLessThan("user001", page).stream().map(UserSummary::getUsername).collect(Collectors.toList()))
+                .containsExactly("user000", "admin");
+    }
+}
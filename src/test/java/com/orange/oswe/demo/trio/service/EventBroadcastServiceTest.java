@@ -0,0 +1,120 @@
+package com.orange.oswe.demo.trio.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.orange.oswe.demo.trio.game.events.BinaryEventCodec;
+import com.orange.oswe.demo.trio.game.events.Event;
+import com.orange.oswe.demo.trio.game.model.Game;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Matchers;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(MockitoJUnitRunner.class)
+public class EventBroadcastServiceTest {
+
+    private static final String GAME_ID = "game";
+    private static final String DESTINATION = "/down/games/" + GAME_ID;
+
+    @Mock
+    SimpMessagingTemplate messagingTemplate;
+
+    EventBroadcastService service;
+
+    @Before
+    public void setup() {
+        service = new EventBroadcastService();
+        ReflectionTestUtils.setField(service, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(service, "messagingTemplate", messagingTemplate);
+        ReflectionTestUtils.setField(service, "destinationPrefix", "/down/games/");
+        ReflectionTestUtils.setField(service, "binarySuffix", "/bin");
+    }
+
+    @Test
+    public void events_are_not_encoded_without_subscribers() {
+        service.onSubscribe(new SessionSubscribeEvent(this, message(SimpMessageType.SUBSCRIBE, "session1", "sub1", "/down/games/other")));
+
+        service.broadcast(GAME_ID, event());
+
+        Mockito.verifyZeroInteractions(messagingTemplate);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void events_are_encoded_once_per_subscribed_format() {
+        service.onSubscribe(new SessionSubscribeEvent(this, message(SimpMessageType.SUBSCRIBE, "session1", "sub1", DESTINATION)));
+        service.onSubscribe(new SessionSubscribeEvent(this, message(SimpMessageType.SUBSCRIBE, "session2", "sub1", DESTINATION)));
+        service.onSubscribe(new SessionSubscribeEvent(this, message(SimpMessageType.SUBSCRIBE, "session3", "sub1", DESTINATION + "/bin")));
+
+        Event event = event();
+        service.broadcast(GAME_ID, event);
+
+        ArgumentCaptor<Message> jsonCaptor = ArgumentCaptor.forClass(Message.class);
+        Mockito.verify(messagingTemplate).send(Matchers.eq(DESTINATION), jsonCaptor.capture());
+        assertThat(new String((byte[]) jsonCaptor.getValue().getPayload(), StandardCharsets.UTF_8)).contains("\"state\":\"over\"");
+
+        ArgumentCaptor<Message> binaryCaptor = ArgumentCaptor.forClass(Message.class);
+        Mockito.verify(messagingTemplate).send(Matchers.eq(DESTINATION + "/bin"), binaryCaptor.capture());
+        assertThat(BinaryEventCodec.decode(Base64.getDecoder().decode((byte[]) binaryCaptor.getValue().getPayload()))).isEqualTo(event);
+    }
+
+    @Test
+    public void unsubscribe_and_disconnect_stop_broadcasting() {
+        service.onSubscribe(new SessionSubscribeEvent(this, message(SimpMessageType.SUBSCRIBE, "session1", "sub1", DESTINATION)));
+        service.onSubscribe(new SessionSubscribeEvent(this, message(SimpMessageType.SUBSCRIBE, "session2", "sub1", DESTINATION)));
+
+        service.onUnsubscribe(new SessionUnsubscribeEvent(this, message(SimpMessageType.UNSUBSCRIBE, "session1", "sub1", null)));
+        service.broadcast(GAME_ID, event());
+        Mockito.verify(messagingTemplate, Mockito.times(1)).send(Matchers.eq(DESTINATION), Matchers.any());
+
+        service.onDisconnect(new SessionDisconnectEvent(this, message(SimpMessageType.DISCONNECT, "session2", null, null), "session2", CloseStatus.NORMAL));
+        service.broadcast(GAME_ID, event());
+        Mockito.verify(messagingTemplate, Mockito.times(1)).send(Matchers.eq(DESTINATION), Matchers.any());
+    }
+
+    @Test
+    public void events_are_always_sent_to_the_broker_relay() {
+        ReflectionTestUtils.setField(service, "relayEnabled", true);
+
+        service.broadcast(GAME_ID, event());
+
+        Mockito.verify(messagingTemplate).send(Matchers.eq(DESTINATION), Matchers.any());
+        Mockito.verify(messagingTemplate).send(Matchers.eq(DESTINATION + "/bin"), Matchers.any());
+    }
+
+    private static Event event() {
+        Event event = Event.gameStateChanged(Game.State.over);
+        event.setSeq(12);
+        return event;
+    }
+
+    private static Message<byte[]> message(SimpMessageType type, String sessionId, String subscriptionId, String destination) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(type);
+        headers.setSessionId(sessionId);
+        if (subscriptionId != null) {
+            headers.setSubscriptionId(subscriptionId);
+        }
+        if (destination != null) {
+            headers.setDestination(destination);
+        }
+        return MessageBuilder.createMessage(new byte[0], headers.getMessageHeaders());
+    }
+}
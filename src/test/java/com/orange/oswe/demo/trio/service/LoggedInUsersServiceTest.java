@@ -0,0 +1,119 @@
+package com.orange.oswe.demo.trio.service;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.event.InteractiveAuthenticationSuccessEvent;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
+import org.springframework.security.web.session.HttpSessionCreatedEvent;
+import org.springframework.security.web.session.HttpSessionDestroyedEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LoggedInUsersServiceTest {
+
+    private static final int THREADS = 8;
+    private static final int SESSIONS_PER_THREAD = 500;
+    private static final int USERS = 5;
+
+    private final LoggedInUsersService service = new LoggedInUsersService();
+
+    @After
+    public void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private static Authentication authentication(String userName, MockHttpSession session) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setSession(session);
+        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                new User(userName, "", AuthorityUtils.createAuthorityList("ROLE_USER")), null, AuthorityUtils.createAuthorityList("ROLE_USER"));
+        authentication.setDetails(new WebAuthenticationDetails(request));
+        return authentication;
+    }
+
+    private void login(String userName, MockHttpSession session) {
+        service.onAuthenticationSuccess(new InteractiveAuthenticationSuccessEvent(authentication(userName, session), getClass()));
+    }
+
+    private void logout(String userName, MockHttpSession session) {
+        SecurityContextHolder.getContext().setAuthentication(authentication(userName, session));
+        service.onSessionDestroyed(new HttpSessionDestroyedEvent(session));
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    public void sessions_should_move_from_anonymous_to_user() {
+        MockHttpSession session = new MockHttpSession(null, "s1");
+        service.onSessionCreated(new HttpSessionCreatedEvent(session));
+        assertThat(service.countAnonymousConnections()).isEqualTo(1);
+        assertThat(service.isConnected("alice")).isFalse();
+
+        login("alice", session);
+        assertThat(service.countAnonymousConnections()).isEqualTo(0);
+        assertThat(service.countConnectionsFor("alice")).isEqualTo(1);
+        assertThat(service.countAllConnections()).isEqualTo(1);
+
+        // --- same session reported twice
+        login("alice", session);
+        assertThat(service.countAllConnections()).isEqualTo(1);
+
+        logout("alice", session);
+        assertThat(service.isConnected("alice")).isFalse();
+        assertThat(service.countAllConnections()).isEqualTo(0);
+    }
+
+    @Test
+    public void counts_should_survive_a_login_storm() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            workers.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < SESSIONS_PER_THREAD; i++) {
+                    MockHttpSession session = new MockHttpSession(null, thread + "-" + i);
+                    String userName = "user" + (i % USERS);
+                    service.onSessionCreated(new HttpSessionCreatedEvent(session));
+                    // --- every other session logs in, and half of those log out
+                    if (i % 2 == 0) {
+                        login(userName, session);
+                        if (i % 4 == 0) {
+                            logout(userName, session);
+                        }
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+        executor.shutdown();
+
+        int anonymous = THREADS * SESSIONS_PER_THREAD / 2;
+        int authenticated = THREADS * SESSIONS_PER_THREAD / 4;
+        assertThat(service.countAnonymousConnections()).isEqualTo(anonymous);
+        assertThat(service.countAllConnections()).isEqualTo(anonymous + authenticated);
+        int perUser = 0;
+        for (int u = 0; u < USERS; u++) {
+            perUser += service.countConnectionsFor("user" + u);
+        }
+        assertThat(perUser).isEqualTo(authenticated);
+    }
+}
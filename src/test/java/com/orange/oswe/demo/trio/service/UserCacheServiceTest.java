@@ -0,0 +1,79 @@
+package com.orange.oswe.demo.trio.service;
+
+import com.orange.oswe.demo.trio.domain.Authority;
+import com.orange.oswe.demo.trio.domain.User;
+import com.orange.oswe.demo.trio.repository.UserRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(MockitoJUnitRunner.class)
+public class UserCacheServiceTest {
+
+    @Mock
+    UserRepository userRepository;
+
+    UserCacheService userCache;
+
+    User alice;
+
+    @Before
+    public void setup() {
+        userCache = new UserCacheService(userRepository, 100, 60);
+        alice = new User("alice", "Alice", "{bcrypt}");
+        alice.addAuthority(new Authority("ROLE_USER"));
+        Mockito.when(userRepository.findByUsername("alice")).thenReturn(alice);
+    }
+
+    @Test
+    public void users_should_be_loaded_once() {
+        assertThat(userCache.findByUsername("alice")).isSameAs(alice);
+        assertThat(userCache.findByUsername("alice")).isSameAs(alice);
+        assertThat(userCache.loadUserByUsername("alice").getUsername()).isEqualTo("alice");
+
+        Mockito.verify(userRepository, Mockito.times(1)).findByUsername("alice");
+    }
+
+    @Test
+    public void invalidated_users_should_be_reloaded() {
+        userCache.findByUsername("alice");
+        userCache.invalidate("alice");
+        userCache.findByUsername("alice");
+
+        Mockito.verify(userRepository, Mockito.times(2)).findByUsername("alice");
+    }
+
+    @Test
+    public void unknown_users_should_not_be_cached() {
+        assertThat(userCache.findByUsername("bob")).isNull();
+        User bob = new User("bob", "Bob", "{bcrypt}");
+        Mockito.when(userRepository.findByUsername("bob")).thenReturn(bob);
+
+        // --- e.g. created on another node
+        assertThat(userCache.findByUsername("bob")).isSameAs(bob);
+    }
+
+    @Test
+    public void user_details_should_not_share_the_cached_credentials() {
+        UserDetails details = userCache.loadUserByUsername("alice");
+        assertThat(details.getPassword()).isEqualTo("{bcrypt}");
+        assertThat(details.getAuthorities()).extracting("authority").containsExactly("ROLE_USER");
+
+        // --- as done by Spring Security once authenticated
+        ((org.springframework.security.core.userdetails.User) details).eraseCredentials();
+
+        assertThat(userCache.loadUserByUsername("alice").getPassword()).isEqualTo("{bcrypt}");
+    }
+
+    @Test(expected = UsernameNotFoundException.class)
+    public void unknown_user_details_should_be_rejected() {
+        userCache.loadUserByUsername("bob");
+    }
+}